@@ -0,0 +1,62 @@
+package com.hdbank.customer_fee_service.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Cost of one FeeChargedEvent on the wire: JSON (previous format) vs FeeChargedEventCodec binary V1
+ * Compare gc.alloc.rate.norm for the allocations per event; the encoded size gap is asserted by FeeChargedEventCodecTest
+ */
+@State(Scope.Benchmark)
+public class FeeChargedEventCodecBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private FeeChargedEvent event;
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup
+    public void setUp() throws IOException {
+        event = FeeChargedEvent.builder()
+                .eventId(UUID.randomUUID().toString())
+                .eventTime(Instant.now().toString())
+                .jobId(1_234_567L)
+                .customerId(98_765L)
+                .feeConfigId(4_321L)
+                .chargedAmount(new BigDecimal("50000.00"))
+                .currency("VND")
+                .billingMonth("2026-10")
+                .build();
+        json = objectMapper.writeValueAsBytes(event);
+        binary = FeeChargedEventCodec.encode(event);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws IOException {
+        return objectMapper.writeValueAsBytes(event);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return FeeChargedEventCodec.encode(event);
+    }
+
+    @Benchmark
+    public FeeChargedEvent decodeJson() throws IOException {
+        return objectMapper.readValue(json, FeeChargedEvent.class);
+    }
+
+    @Benchmark
+    public FeeChargedEvent decodeBinary() {
+        return FeeChargedEventCodec.decode(binary);
+    }
+}
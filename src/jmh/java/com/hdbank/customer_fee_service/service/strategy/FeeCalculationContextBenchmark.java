@@ -0,0 +1,93 @@
+package com.hdbank.customer_fee_service.service.strategy;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.hdbank.customer_fee_service.entity.CalculationType;
+import com.hdbank.customer_fee_service.entity.CustomerFeeConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cost of FeeCalculationContext dispatch as used by charging and preview
+ * cached* = calculateFee(type, config): plan cache hit keyed by (config id, version)
+ * adHoc* = calculateFee(type, amount, params): strategy lookup + validate + compile on every call
+ * logLevel INFO = hot-path mode (per-job logs disabled), DEBUG = per-job detail enabled;
+ * compare gc.alloc.rate.norm of both to see the allocations logging adds per charge
+ */
+@State(Scope.Benchmark)
+public class FeeCalculationContextBenchmark {
+
+    private static final BigDecimal MONTHLY_FEE = new BigDecimal("50000");
+
+    @Param({"3", "10", "40", "100"})
+    private int tierCount;
+
+    @Param({"INFO", "DEBUG"})
+    private String logLevel;
+
+    private FeeCalculationContext context;
+
+    private CustomerFeeConfig fixedConfig;
+    private CustomerFeeConfig percentageConfig;
+    private CustomerFeeConfig tieredConfig;
+
+    @Setup
+    public void setUp() {
+        ((Logger) LoggerFactory.getLogger("com.hdbank.customer_fee_service")).setLevel(Level.toLevel(logLevel));
+
+        context = new FeeCalculationContext(List.of(
+                new FixedMonthlyFeeStrategy(),
+                new PercentageBalanceFeeStrategy(),
+                new TieredBalanceFeeStrategy()
+        ), 10_000);
+
+        fixedConfig = config(1L, Map.of());
+        percentageConfig = config(2L, FeeParamsFixtures.percentageParams());
+        tieredConfig = config(3L, FeeParamsFixtures.tieredParams(tierCount));
+    }
+
+    @Benchmark
+    public BigDecimal cachedFixed() {
+        return context.calculateFee(CalculationType.FIXED.toString(), fixedConfig);
+    }
+
+    @Benchmark
+    public BigDecimal cachedPercentage() {
+        return context.calculateFee(CalculationType.PERCENTAGE.toString(), percentageConfig);
+    }
+
+    @Benchmark
+    public BigDecimal cachedTiered() {
+        return context.calculateFee(CalculationType.TIERED.toString(), tieredConfig);
+    }
+
+    @Benchmark
+    public BigDecimal adHocPercentage() {
+        return context.calculateFee(CalculationType.PERCENTAGE.toString(), MONTHLY_FEE,
+                percentageConfig.getCalculationParams());
+    }
+
+    @Benchmark
+    public BigDecimal adHocTiered() {
+        return context.calculateFee(CalculationType.TIERED.toString(), MONTHLY_FEE,
+                tieredConfig.getCalculationParams());
+    }
+
+    private static CustomerFeeConfig config(Long id, Map<String, Object> params) {
+        return CustomerFeeConfig.builder()
+                .id(id)
+                .customerId(id)
+                .feeTypeId(id)
+                .monthlyFeeAmount(MONTHLY_FEE)
+                .calculationParams(params)
+                .build();
+    }
+}
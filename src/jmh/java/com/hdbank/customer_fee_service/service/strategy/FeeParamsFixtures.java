@@ -0,0 +1,56 @@
+package com.hdbank.customer_fee_service.service.strategy;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Calculation params shaped like customer_fee_config.calculation_params
+ * Params are built as JSONB text and read back with Jackson, same as Hibernate does for the JSON column,
+ * so the benchmarks see the real value types (Integer / Long / Double, ArrayList of LinkedHashMap)
+ */
+final class FeeParamsFixtures {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final long TIER_WIDTH = 10_000_000L;  // 10M VND per tier
+
+    private FeeParamsFixtures() {
+    }
+
+    static Map<String, Object> percentageParams() {
+        return fromJson("""
+                {"balance": 100000000, "percentage": 0.001, "min_fee": 10000, "max_fee": 50000}
+                """);
+    }
+
+    /**
+     * Tiers of 10M each, the last one open-ended, balance placed in the middle tier
+     */
+    static Map<String, Object> tieredParams(int tierCount) {
+        StringBuilder tiers = new StringBuilder();
+        for (int i = 0; i < tierCount; i++) {
+            long from = i == 0 ? 0 : i * TIER_WIDTH + 1;
+            String to = i == tierCount - 1 ? "null" : String.valueOf((i + 1) * TIER_WIDTH);
+            if (i > 0) {
+                tiers.append(',');
+            }
+            tiers.append("{\"from\": ").append(from)
+                    .append(", \"to\": ").append(to)
+                    .append(", \"fee\": ").append((i + 1) * 1000)
+                    .append('}');
+        }
+        long balance = (tierCount / 2) * TIER_WIDTH + TIER_WIDTH / 2;
+        return fromJson("{\"balance\": " + balance + ", \"tiers\": [" + tiers + "]}");
+    }
+
+    private static Map<String, Object> fromJson(String json) {
+        try {
+            return OBJECT_MAPPER.readValue(json, new TypeReference<>() {});
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.hdbank.customer_fee_service.service.strategy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Per-strategy cost of one calculation
+ * raw* = calculateFee(amount, params): parse + calculate on every call (uncached path, e.g. preview with request params)
+ * compiled* = FeePlan.calculateFee(amount): what a cached plan costs per job
+ * Only the tiered benchmarks run per tierCount (TieredState)
+ */
+@State(Scope.Benchmark)
+public class FeeStrategyBenchmark {
+
+    private static final BigDecimal MONTHLY_FEE = new BigDecimal("50000");
+
+    private FixedMonthlyFeeStrategy fixedStrategy;
+    private PercentageBalanceFeeStrategy percentageStrategy;
+
+    private Map<String, Object> percentageParams;
+
+    private FeePlan fixedPlan;
+    private FeePlan percentagePlan;
+
+    @Setup
+    public void setUp() {
+        fixedStrategy = new FixedMonthlyFeeStrategy();
+        percentageStrategy = new PercentageBalanceFeeStrategy();
+
+        percentageParams = FeeParamsFixtures.percentageParams();
+
+        fixedPlan = fixedStrategy.compile(Map.of());
+        percentagePlan = percentageStrategy.compile(percentageParams);
+    }
+
+    @State(Scope.Benchmark)
+    public static class TieredState {
+
+        @Param({"3", "10", "40", "100"})
+        private int tierCount;
+
+        private TieredBalanceFeeStrategy tieredStrategy;
+        private Map<String, Object> tieredParams;
+        private FeePlan tieredPlan;
+
+        @Setup
+        public void setUp() {
+            tieredStrategy = new TieredBalanceFeeStrategy();
+            tieredParams = FeeParamsFixtures.tieredParams(tierCount);
+            tieredPlan = tieredStrategy.compile(tieredParams);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal rawFixed() {
+        return fixedStrategy.calculateFee(MONTHLY_FEE, Map.of());
+    }
+
+    @Benchmark
+    public BigDecimal rawPercentage() {
+        return percentageStrategy.calculateFee(MONTHLY_FEE, percentageParams);
+    }
+
+    @Benchmark
+    public BigDecimal rawTiered(TieredState state) {
+        return state.tieredStrategy.calculateFee(MONTHLY_FEE, state.tieredParams);
+    }
+
+    @Benchmark
+    public BigDecimal compiledFixed() {
+        return fixedPlan.calculateFee(MONTHLY_FEE);
+    }
+
+    @Benchmark
+    public BigDecimal compiledPercentage() {
+        return percentagePlan.calculateFee(MONTHLY_FEE);
+    }
+
+    @Benchmark
+    public BigDecimal compiledTiered(TieredState state) {
+        return state.tieredPlan.calculateFee(MONTHLY_FEE);
+    }
+
+    @Benchmark
+    public void validateTiered(TieredState state) {
+        state.tieredStrategy.validateParams(state.tieredParams);
+    }
+}
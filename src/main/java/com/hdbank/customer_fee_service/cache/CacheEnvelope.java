@@ -0,0 +1,38 @@
+package com.hdbank.customer_fee_service.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Value stored by caches with refresh-ahead, carrying what XFetch needs:
+ * how long the value took to load and when the Redis entry expires
+ * Not final, so the default-typed Redis serializer keeps its class information
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheEnvelope {
+
+    private Object value;
+
+    private long loadMillis;
+
+    private long expiresAtMillis;
+
+    /**
+     * XFetch: refresh early when now - loadMillis * beta * ln(rand) >= expiry
+     * The closer the expiry and the slower the load, the more likely; with beta = 1 the expected
+     * refresh happens about one load time before expiry, by a single caller
+     * Load times under 1ms (and values put without a load, loadMillis = 0) count as 1ms
+     */
+    boolean refreshEarly(long nowMillis, double beta) {
+        if (expiresAtMillis <= 0) {
+            return false;
+        }
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble(); // (0, 1]
+        return nowMillis - Math.max(loadMillis, 1) * beta * Math.log(random) >= expiresAtMillis;
+    }
+}
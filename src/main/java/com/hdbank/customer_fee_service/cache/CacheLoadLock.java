@@ -0,0 +1,74 @@
+package com.hdbank.customer_fee_service.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Short Redis lock (SET NX PX) so only one node loads a missing cache entry at a time
+ * The lock expires on its own, so a node dying mid-load only delays the others by the lock ttl.
+ * Redis errors count as "acquired": the load goes ahead without cross-node coordination.
+ */
+@Slf4j
+class CacheLoadLock {
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+
+    CacheLoadLock(StringRedisTemplate redisTemplate, Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = ttl;
+    }
+
+    Duration getTtl() {
+        return ttl;
+    }
+
+    /**
+     * @return a token to release the lock with, or null when another node holds it
+     */
+    String tryLock(String cacheName, String key) {
+        String token = UUID.randomUUID().toString();
+        try {
+            Boolean acquired = redisTemplate.opsForValue().setIfAbsent(lockKey(cacheName, key), token, ttl);
+            return Boolean.FALSE.equals(acquired) ? null : token;
+        } catch (Exception e) {
+            log.warn("Cache load lock unavailable for {}::{}: {}", cacheName, key, e.getMessage());
+            return token;
+        }
+    }
+
+    /**
+     * Whether some node still holds the lock; false on Redis errors, so waiters load themselves
+     */
+    boolean isLocked(String cacheName, String key) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.hasKey(lockKey(cacheName, key)));
+        } catch (Exception e) {
+            log.warn("Cache load lock unavailable for {}::{}: {}", cacheName, key, e.getMessage());
+            return false;
+        }
+    }
+
+    void unlock(String cacheName, String key, String token) {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(lockKey(cacheName, key)), token);
+        } catch (Exception e) {
+            // Expires with the ttl
+            log.warn("Failed to release cache load lock for {}::{}: {}", cacheName, key, e.getMessage());
+        }
+    }
+
+    private static String lockKey(String cacheName, String key) {
+        return "fee-cache-lock:" + cacheName + "::" + key;
+    }
+}
@@ -0,0 +1,130 @@
+package com.hdbank.customer_fee_service.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Targeted eviction for the feeConfigs cache
+ * Entries are grouped by customer tag: a config id plus the customer's customerId:<id>:timeline,
+ * so an edit only evicts the affected customer's keys instead of the whole cache.
+ * Inside a transaction the keys are collected and evicted once, after commit (nothing is evicted on rollback,
+ * and a reader cannot re-cache the old rows before the commit). Bulk edits therefore invalidate in one batch.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FeeConfigCacheInvalidator {
+
+    public static final String CACHE_NAME = "feeConfigs";
+
+    // Key format of FeeConfigTimelineService.getTimeline
+    public static final String TIMELINE_KEY_FORMAT = "customerId:%d:timeline";
+
+    // No CacheManager when caching is disabled (spring.cache.type=none)
+    private final ObjectProvider<CacheManager> cacheManagerProvider;
+
+    /**
+     * Evict the keys of one customer, and of one config when configId is not null
+     */
+    public void evict(Long customerId, Long configId) {
+        Set<String> keys = new LinkedHashSet<>(customerKeys(customerId));
+        if (configId != null) {
+            keys.add(String.valueOf(configId));
+        }
+        evictKeys(keys);
+    }
+
+    /**
+     * Evict the keys of many customers at once (bulk edits)
+     */
+    public void evictCustomers(Collection<Long> customerIds) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (Long customerId : customerIds) {
+            keys.addAll(customerKeys(customerId));
+        }
+        evictKeys(keys);
+    }
+
+    /**
+     * Clear the whole feeConfigs cache, cheaper than evicting keys once most customers are affected
+     */
+    public void clearAll() {
+        CacheManager cacheManager = cacheManagerProvider.getIfAvailable();
+        Cache cache = cacheManager != null ? cacheManager.getCache(CACHE_NAME) : null;
+        if (cache != null) {
+            cache.clear();
+            log.info("Cleared feeConfigs cache");
+        }
+    }
+
+    public static List<String> customerKeys(Long customerId) {
+        return List.of(String.format(TIMELINE_KEY_FORMAT, customerId));
+    }
+
+    private void evictKeys(Set<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingEviction().keys.addAll(keys);
+        } else {
+            evictNow(keys);
+        }
+    }
+
+    private PendingEviction pendingEviction() {
+        PendingEviction pending = (PendingEviction) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingEviction();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending;
+    }
+
+    void evictNow(Collection<String> keys) {
+        CacheManager cacheManager = cacheManagerProvider.getIfAvailable();
+        if (cacheManager == null) {
+            return;
+        }
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null) {
+            return;
+        }
+        try {
+            if (cache instanceof TwoTierCache twoTierCache) {
+                twoTierCache.evictAll(keys);
+            } else {
+                keys.forEach(cache::evict);
+            }
+            log.debug("Evicted {} feeConfigs keys", keys.size());
+        } catch (Exception e) {
+            // The write is committed already, entries will age out with the cache TTL
+            log.error("Failed to evict feeConfigs keys {}", keys, e);
+        }
+    }
+
+    private class PendingEviction implements TransactionSynchronization {
+
+        private final Set<String> keys = new LinkedHashSet<>();
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(FeeConfigCacheInvalidator.this);
+            if (status == STATUS_COMMITTED) {
+                evictNow(keys);
+            }
+        }
+    }
+}
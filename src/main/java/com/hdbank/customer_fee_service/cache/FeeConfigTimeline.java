@@ -0,0 +1,57 @@
+package com.hdbank.customer_fee_service.cache;
+
+import com.hdbank.customer_fee_service.dto.response.FeeConfigResponse;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * All non-deleted configs of one customer as effective-date intervals sorted by effectiveFrom
+ * Configs of a customer never overlap, so the config in effect on a date is the last one starting on or before it,
+ * found by binary search. Cached per customer in feeConfigs, it answers every date (today, a billing date)
+ * without going stale at midnight.
+ * Not final, so the default-typed Redis serializer keeps its class information
+ */
+@Getter
+@NoArgsConstructor
+public class FeeConfigTimeline {
+
+    private List<FeeConfigResponse> configs = new ArrayList<>();
+
+    public static FeeConfigTimeline of(Collection<FeeConfigResponse> configs) {
+        FeeConfigTimeline timeline = new FeeConfigTimeline();
+        timeline.configs = new ArrayList<>(configs);
+        timeline.configs.sort(Comparator.comparing(FeeConfigResponse::getEffectiveFrom));
+        return timeline;
+    }
+
+    /**
+     * Config in effect on the given date: effectiveFrom <= date and (effectiveTo is null or date <= effectiveTo)
+     */
+    public Optional<FeeConfigResponse> resolve(LocalDate date) {
+        int low = 0;
+        int high = configs.size() - 1;
+        int candidate = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (configs.get(middle).getEffectiveFrom().isAfter(date)) {
+                high = middle - 1;
+            } else {
+                candidate = middle;
+                low = middle + 1;
+            }
+        }
+        if (candidate < 0) {
+            return Optional.empty();
+        }
+        FeeConfigResponse config = configs.get(candidate);
+        boolean ended = config.getEffectiveTo() != null && date.isAfter(config.getEffectiveTo());
+        return ended ? Optional.empty() : Optional.of(config);
+    }
+}
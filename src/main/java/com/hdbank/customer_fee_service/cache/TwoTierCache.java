@@ -0,0 +1,440 @@
+package com.hdbank.customer_fee_service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache with an in-process Caffeine L1 in front of a shared Redis L2
+ * Reads try L1, then L2 (filling L1 on an L2 hit). Evict/clear go to L2, drop the local entry and are published
+ * to the other nodes through TwoTierCacheManager, so they drop theirs too. L1 entries also expire on their own (ttl),
+ * which bounds staleness if an invalidation message is lost.
+ * L1 hands out the same instance to every caller, so cached values must be treated as read-only.
+ * Loads through get(key, loader) (@Cacheable(sync = true)) are single-flight: one load per key on a node,
+ * and one across nodes while the CacheLoadLock is held; the others wait for its value.
+ * With refresh-ahead, values are stored in a CacheEnvelope and one caller reloads them shortly before the Redis
+ * TTL runs out (XFetch), while everyone else keeps being served the current value.
+ * Metrics: fee.cache.gets{cache, tier, result}, fee.cache.l1.size{cache}, fee.cache.loads{cache, reason},
+ * fee.cache.loads.coalesced{cache, scope}
+ */
+@Slf4j
+public class TwoTierCache implements Cache {
+
+    private static final long PEER_POLL_MILLIS = 50;
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+    private final Cache remote;
+    private final TwoTierCacheManager manager;
+    private final CacheLoadLock loadLock;
+    private final Duration refreshAheadTtl;
+    private final double refreshAheadBeta;
+
+    // Loads in progress on this node, per local key
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+    private final Counter missLoads;
+    private final Counter refreshAheadLoads;
+    private final Counter coalescedLocal;
+    private final Counter coalescedPeer;
+
+    /**
+     * @param refreshAheadTtl Redis TTL of the entries when refresh-ahead is on, Duration.ZERO otherwise
+     */
+    TwoTierCache(String name,
+                 com.github.benmanes.caffeine.cache.Cache<String, Object> local,
+                 Cache remote,
+                 TwoTierCacheManager manager,
+                 CacheLoadLock loadLock,
+                 Duration refreshAheadTtl,
+                 double refreshAheadBeta,
+                 MeterRegistry meterRegistry) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.manager = manager;
+        this.loadLock = loadLock;
+        this.refreshAheadTtl = refreshAheadTtl;
+        this.refreshAheadBeta = refreshAheadBeta;
+        this.l1Hits = getsCounter(meterRegistry, name, "l1", "hit");
+        this.l1Misses = getsCounter(meterRegistry, name, "l1", "miss");
+        this.l2Hits = getsCounter(meterRegistry, name, "l2", "hit");
+        this.l2Misses = getsCounter(meterRegistry, name, "l2", "miss");
+        this.missLoads = loadsCounter(meterRegistry, name, "miss");
+        this.refreshAheadLoads = loadsCounter(meterRegistry, name, "refresh-ahead");
+        this.coalescedLocal = coalescedCounter(meterRegistry, name, "local");
+        this.coalescedPeer = coalescedCounter(meterRegistry, name, "peer");
+        Gauge.builder("fee.cache.l1.size", local, com.github.benmanes.caffeine.cache.Cache::estimatedSize)
+                .tag("cache", name)
+                .description("Entries held in the local cache tier")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object stored = lookup(key);
+        return stored != null ? new SimpleValueWrapper(unwrap(stored)) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        Object stored = lookup(key);
+        Object value = stored != null ? unwrap(stored) : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object stored = lookup(key);
+        if (stored == null) {
+            return (T) loadMissing(key, valueLoader);
+        }
+        if (stored instanceof CacheEnvelope envelope
+                && envelope.refreshEarly(System.currentTimeMillis(), refreshAheadBeta)) {
+            return (T) refreshAhead(key, valueLoader, envelope);
+        }
+        return (T) unwrap(stored);
+    }
+
+    /**
+     * Puts come from loading the source of truth, so they are not broadcast: writes go through evict
+     */
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            remote.put(key, null);
+            local.invalidate(localKey(key));
+            return;
+        }
+        store(key, value, 0);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        Object stored = value != null ? wrap(value, 0) : null;
+        ValueWrapper existing = remote.putIfAbsent(key, stored);
+        Object current = existing != null ? existing.get() : stored;
+        if (current != null) {
+            local.put(localKey(key), current);
+        }
+        return existing != null ? new SimpleValueWrapper(unwrap(existing.get())) : null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        local.invalidate(localKey(key));
+        manager.publishEvict(name, List.of(localKey(key)));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = remote.evictIfPresent(key);
+        local.invalidate(localKey(key));
+        manager.publishEvict(name, List.of(localKey(key)));
+        return evicted;
+    }
+
+    /**
+     * Evict a group of keys with a single Redis DEL and a single invalidation message to the other nodes
+     */
+    public void evictAll(Collection<?> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<String> localKeys = new ArrayList<>(keys.size());
+        for (Object key : keys) {
+            localKeys.add(localKey(key));
+        }
+        if (remote instanceof RedisCache redisCache) {
+            manager.deleteRemote(redisKeys(redisCache, keys));
+        } else {
+            keys.forEach(remote::evict);
+        }
+        local.invalidateAll(localKeys);
+        manager.publishEvict(name, localKeys);
+    }
+
+    /**
+     * Keys as RedisCache stores them: prefix + key converted to String (keys use the StringRedisSerializer)
+     */
+    private List<String> redisKeys(RedisCache redisCache, Collection<?> keys) {
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        String prefix = config.usePrefix() ? config.getKeyPrefixFor(name) : "";
+        List<String> redisKeys = new ArrayList<>(keys.size());
+        for (Object key : keys) {
+            redisKeys.add(prefix + config.getConversionService().convert(key, String.class));
+        }
+        return redisKeys;
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        manager.publishClear(name);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = remote.invalidate();
+        local.invalidateAll();
+        manager.publishClear(name);
+        return invalidated;
+    }
+
+    /**
+     * Drop local entries only, on an invalidation received from another node
+     */
+    void evictLocal(Collection<String> keys) {
+        local.invalidateAll(keys);
+    }
+
+    void clearLocal() {
+        local.invalidateAll();
+    }
+
+    /**
+     * L1 keys are the same strings RedisCache uses (String.valueOf), so 42L and "42" are one entry,
+     * and a key received over pub/sub matches the local one
+     */
+    static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    /**
+     * Stored form of the entry (value or CacheEnvelope), L1 first then L2
+     */
+    private Object lookup(Object key) {
+        String localKey = localKey(key);
+        Object stored = local.getIfPresent(localKey);
+        if (stored != null) {
+            l1Hits.increment();
+            return stored;
+        }
+        l1Misses.increment();
+
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper == null || wrapper.get() == null) {
+            l2Misses.increment();
+            return null;
+        }
+        l2Hits.increment();
+        local.put(localKey, wrapper.get());
+        return wrapper.get();
+    }
+
+    private Object loadMissing(Object key, Callable<?> valueLoader) {
+        String localKey = localKey(key);
+        CompletableFuture<Object> loading = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(localKey, loading);
+        if (existing != null) {
+            coalescedLocal.increment();
+            return await(existing);
+        }
+        try {
+            Object value = loadAcrossNodes(key, localKey, valueLoader);
+            loading.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            loading.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(localKey, loading);
+        }
+    }
+
+    private Object loadAcrossNodes(Object key, String localKey, Callable<?> valueLoader) {
+        String token = loadLock.tryLock(name, localKey);
+        if (token == null) {
+            Object fromPeer = awaitPeer(key, localKey);
+            if (fromPeer != null) {
+                coalescedPeer.increment();
+                return unwrap(fromPeer);
+            }
+            // The other node is too slow or failed, load it here
+            return load(key, valueLoader, missLoads);
+        }
+        try {
+            // Another node may have stored it between our miss and taking the lock
+            ValueWrapper wrapper = remote.get(key);
+            if (wrapper != null && wrapper.get() != null) {
+                local.put(localKey, wrapper.get());
+                coalescedPeer.increment();
+                return unwrap(wrapper.get());
+            }
+            return load(key, valueLoader, missLoads);
+        } finally {
+            loadLock.unlock(name, localKey, token);
+        }
+    }
+
+    /**
+     * Wait up to the lock ttl for the node holding the load lock to store the value
+     * Stops as soon as the lock is released without a value (the peer's load failed or returned null)
+     */
+    private Object awaitPeer(Object key, String localKey) {
+        long deadline = System.currentTimeMillis() + loadLock.getTtl().toMillis();
+        try {
+            while (System.currentTimeMillis() < deadline) {
+                Thread.sleep(PEER_POLL_MILLIS);
+                Object stored = peerValue(key, localKey);
+                if (stored != null) {
+                    return stored;
+                }
+                if (!loadLock.isLocked(name, localKey)) {
+                    // The value may have been stored just before the release
+                    return peerValue(key, localKey);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private Object peerValue(Object key, String localKey) {
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper != null && wrapper.get() != null) {
+            local.put(localKey, wrapper.get());
+            return wrapper.get();
+        }
+        return null;
+    }
+
+    /**
+     * Reload before expiry; callers that do not win the reload (here or on another node) keep the current value
+     */
+    private Object refreshAhead(Object key, Callable<?> valueLoader, CacheEnvelope current) {
+        String localKey = localKey(key);
+        CompletableFuture<Object> loading = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(localKey, loading) != null) {
+            return current.getValue();
+        }
+        Object value = current.getValue();
+        try {
+            String token = loadLock.tryLock(name, localKey);
+            if (token != null) {
+                try {
+                    Object loaded = load(key, valueLoader, refreshAheadLoads);
+                    if (loaded != null) {
+                        value = loaded;
+                    }
+                } finally {
+                    loadLock.unlock(name, localKey, token);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Still valid until the TTL, the next callers get another chance to refresh
+            log.warn("Refresh-ahead failed for {}::{}: {}", name, localKey, e.getMessage());
+        } finally {
+            loading.complete(value);
+            inFlight.remove(localKey, loading);
+        }
+        return value;
+    }
+
+    private Object load(Object key, Callable<?> valueLoader, Counter loads) {
+        long startedAt = System.nanoTime();
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        loads.increment();
+        if (value != null) {
+            // At least 1ms, so sub-millisecond loads still take part in refresh-ahead
+            store(key, value, Math.max(1, Duration.ofNanos(System.nanoTime() - startedAt).toMillis()));
+        }
+        return value;
+    }
+
+    private void store(Object key, Object value, long loadMillis) {
+        Object stored = wrap(value, loadMillis);
+        remote.put(key, stored);
+        local.put(localKey(key), stored);
+    }
+
+    private Object wrap(Object value, long loadMillis) {
+        if (refreshAheadTtl.isZero()) {
+            return value;
+        }
+        return new CacheEnvelope(value, loadMillis, System.currentTimeMillis() + refreshAheadTtl.toMillis());
+    }
+
+    private static Object unwrap(Object stored) {
+        return stored instanceof CacheEnvelope envelope ? envelope.getValue() : stored;
+    }
+
+    private static Object await(CompletableFuture<Object> loading) {
+        try {
+            return loading.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static Counter getsCounter(MeterRegistry meterRegistry, String cacheName, String tier, String result) {
+        return Counter.builder("fee.cache.gets")
+                .tag("cache", cacheName)
+                .tag("tier", tier)
+                .tag("result", result)
+                .description("Cache lookups per tier")
+                .register(meterRegistry);
+    }
+
+    private static Counter loadsCounter(MeterRegistry meterRegistry, String cacheName, String reason) {
+        return Counter.builder("fee.cache.loads")
+                .tag("cache", cacheName)
+                .tag("reason", reason)
+                .description("Values loaded from the source")
+                .register(meterRegistry);
+    }
+
+    private static Counter coalescedCounter(MeterRegistry meterRegistry, String cacheName, String scope) {
+        return Counter.builder("fee.cache.loads.coalesced")
+                .tag("cache", cacheName)
+                .tag("scope", scope)
+                .description("Loads served by a load already running on this node (local) or another node (peer)")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,171 @@
+package com.hdbank.customer_fee_service.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Wraps the RedisCacheManager so every cache gets a local Caffeine L1 (see TwoTierCache)
+ * Evictions are published on a Redis pub/sub channel as "nodeId|E|cache|key1\nkey2..." or "nodeId|C|cache|";
+ * every node listens on it (RedisConfig) and drops the matching local entries. A node skips its own messages.
+ * Caches listed in refreshAheadCaches store CacheEnvelopes and are reloaded ahead of their Redis TTL.
+ */
+@Slf4j
+public class TwoTierCacheManager implements CacheManager, MessageListener, InitializingBean {
+
+    static final String EVICT = "E";
+    static final String CLEAR = "C";
+
+    private final RedisCacheManager redisCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final String channel;
+    private final long localMaxSize;
+    private final Duration localTtl;
+    private final CacheLoadLock loadLock;
+    private final Set<String> refreshAheadCaches;
+    private final double refreshAheadBeta;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(RedisCacheManager redisCacheManager,
+                               StringRedisTemplate redisTemplate,
+                               MeterRegistry meterRegistry,
+                               String channel,
+                               long localMaxSize,
+                               Duration localTtl,
+                               Duration loadLockTtl,
+                               Set<String> refreshAheadCaches,
+                               double refreshAheadBeta) {
+        this.redisCacheManager = redisCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.channel = channel;
+        this.localMaxSize = localMaxSize;
+        this.localTtl = localTtl;
+        this.loadLock = new CacheLoadLock(redisTemplate, loadLockTtl);
+        this.refreshAheadCaches = refreshAheadCaches;
+        this.refreshAheadBeta = refreshAheadBeta;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        // Not a bean itself, so load the configured caches (and their TTLs) here
+        redisCacheManager.afterPropertiesSet();
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoTierCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remote = redisCacheManager.getCache(name);
+        if (remote == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName -> new TwoTierCache(
+                cacheName,
+                Caffeine.newBuilder()
+                        .maximumSize(localMaxSize)
+                        .expireAfterWrite(localTtl)
+                        .build(),
+                remote,
+                this,
+                loadLock,
+                refreshAheadCaches.contains(cacheName) ? remoteTtl(cacheName) : Duration.ZERO,
+                refreshAheadBeta,
+                meterRegistry));
+    }
+
+    private Duration remoteTtl(String cacheName) {
+        RedisCacheConfiguration configuration = redisCacheManager.getCacheConfigurations().get(cacheName);
+        if (configuration == null) {
+            return Duration.ZERO;
+        }
+        Duration ttl = configuration.getTtlFunction().getTimeToLive(cacheName, null);
+        return ttl != null && !ttl.isNegative() ? ttl : Duration.ZERO;
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return redisCacheManager.getCacheNames();
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    /**
+     * Delete L2 entries with one multi-key DEL
+     */
+    void deleteRemote(Collection<String> redisKeys) {
+        redisTemplate.delete(redisKeys);
+    }
+
+    void publishEvict(String cacheName, Collection<String> keys) {
+        publish(nodeId + "|" + EVICT + "|" + cacheName + "|" + String.join("\n", keys));
+    }
+
+    void publishClear(String cacheName) {
+        publish(nodeId + "|" + CLEAR + "|" + cacheName + "|");
+    }
+
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (Exception e) {
+            // Other nodes fall back to the L1 ttl
+            log.warn("Failed to publish cache invalidation {}: {}", message, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        handleInvalidation(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    void handleInvalidation(String message) {
+        String[] parts = message.split("\\|", 4);
+        if (parts.length < 4) {
+            log.warn("Ignoring malformed cache invalidation: {}", message);
+            return;
+        }
+        if (nodeId.equals(parts[0])) {
+            return;
+        }
+        TwoTierCache cache = caches.get(parts[2]);
+        if (cache == null) {
+            // Nothing cached locally yet
+            return;
+        }
+        if (CLEAR.equals(parts[1])) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(List.of(parts[3].split("\n")));
+        }
+        log.debug("Applied cache invalidation from node {}: {} {} {}", parts[0], parts[1], parts[2], parts[3]);
+    }
+
+    String getNodeId() {
+        return nodeId;
+    }
+}
@@ -1,10 +1,36 @@
 package com.hdbank.customer_fee_service.config;
 
+import com.hdbank.customer_fee_service.kafka.FeeChargedEvent;
+import com.hdbank.customer_fee_service.kafka.FeeChargedEventDeserializer;
+import com.hdbank.customer_fee_service.kafka.FeeChargedEventSerializer;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Configuration
 public class KafkaConfig {
@@ -13,8 +39,14 @@ public class KafkaConfig {
     public static final String TOPIC_FEE_CHARGED = "payment.fee.charged.v1";
 
     // Retry topic - for failed message processing
+    // Legacy single tier, only drained by the 1s tier consumer (new retries go to the tiers below)
     public static final String TOPIC_FEE_CHARGED_RETRY = "payment.fee.charged.retry.v1";
 
+    // Retry tiers - a failed message waits 1s, then 10s, then 60s before it is processed again
+    public static final String TOPIC_FEE_CHARGED_RETRY_1S = "payment.fee.charged.retry.1s.v1";
+    public static final String TOPIC_FEE_CHARGED_RETRY_10S = "payment.fee.charged.retry.10s.v1";
+    public static final String TOPIC_FEE_CHARGED_RETRY_60S = "payment.fee.charged.retry.60s.v1";
+
     // Dead Letter Queue - for messages that failed after retries
     public static final String TOPIC_FEE_CHARGED_DLQ = "payment.fee.charged.dlq.v1";
 
@@ -36,6 +68,33 @@ public class KafkaConfig {
                 .build();
     }
 
+    @Bean
+    @ConditionalOnProperty(name = "kafka.admin.enabled", havingValue = "true", matchIfMissing = false)
+    public NewTopic feeChargedRetry1sTopic() {
+        return TopicBuilder.name(TOPIC_FEE_CHARGED_RETRY_1S)
+                .partitions(3)
+                .replicas(1)
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "kafka.admin.enabled", havingValue = "true", matchIfMissing = false)
+    public NewTopic feeChargedRetry10sTopic() {
+        return TopicBuilder.name(TOPIC_FEE_CHARGED_RETRY_10S)
+                .partitions(3)
+                .replicas(1)
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "kafka.admin.enabled", havingValue = "true", matchIfMissing = false)
+    public NewTopic feeChargedRetry60sTopic() {
+        return TopicBuilder.name(TOPIC_FEE_CHARGED_RETRY_60S)
+                .partitions(3)
+                .replicas(1)
+                .build();
+    }
+
     @Bean
     @ConditionalOnProperty(name = "kafka.admin.enabled", havingValue = "true", matchIfMissing = false)
     public NewTopic feeChargedDLQTopic() {
@@ -44,4 +103,136 @@ public class KafkaConfig {
                 .replicas(1)
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * FeeChargedEvent values use the compact binary codec (FeeChargedEventSerializer)
+     * The rest of the producer settings come from spring.kafka.producer.*
+     */
+    @Bean
+    @ConditionalOnProperty(name = "fee.kafka.enabled", havingValue = "true", matchIfMissing = true)
+    public ProducerFactory<String, FeeChargedEvent> feeChargedProducerFactory(KafkaProperties kafkaProperties) {
+        return new DefaultKafkaProducerFactory<>(kafkaProperties.buildProducerProperties(null),
+                new StringSerializer(), new FeeChargedEventSerializer());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "fee.kafka.enabled", havingValue = "true", matchIfMissing = true)
+    public KafkaTemplate<String, FeeChargedEvent> feeChargedKafkaTemplate(
+            ProducerFactory<String, FeeChargedEvent> feeChargedProducerFactory) {
+        return new KafkaTemplate<>(feeChargedProducerFactory);
+    }
+
+    /**
+     * Raw values, for sending a record that could not be decoded to the DLQ as it was received
+     */
+    @Bean
+    @ConditionalOnProperty(name = "fee.kafka.enabled", havingValue = "true", matchIfMissing = true)
+    public ProducerFactory<String, byte[]> feeChargedRawProducerFactory(KafkaProperties kafkaProperties) {
+        return new DefaultKafkaProducerFactory<>(kafkaProperties.buildProducerProperties(null),
+                new StringSerializer(), new ByteArraySerializer());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "fee.kafka.enabled", havingValue = "true", matchIfMissing = true)
+    public KafkaTemplate<String, byte[]> feeChargedRawKafkaTemplate(
+            ProducerFactory<String, byte[]> feeChargedRawProducerFactory) {
+        return new KafkaTemplate<>(feeChargedRawProducerFactory);
+    }
+
+    /**
+     * Error handler of every FeeChargedEvent listener container
+     * A failed listener (e.g. a retry/DLQ send that was not acked) is redelivered with exponential backoff and
+     * no attempt limit, so offsets are never committed past an event that was not processed or routed.
+     * A record that cannot be decoded is not retried: its raw value goes to the DLQ (with the kafka_dlt-*
+     * exception headers) and its offset is committed.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "fee.kafka.enabled", havingValue = "true", matchIfMissing = true)
+    public DefaultErrorHandler feeChargedErrorHandler(
+            KafkaTemplate<String, FeeChargedEvent> feeChargedKafkaTemplate,
+            KafkaTemplate<String, byte[]> feeChargedRawKafkaTemplate,
+            @Value("${fee.kafka.consumer.error-backoff.initial:1s}") Duration initialBackoff,
+            @Value("${fee.kafka.consumer.error-backoff.max:1m}") Duration maxBackoff) {
+        // The recoverer picks the template by value type, raw bytes first
+        Map<Class<?>, KafkaOperations<?, ?>> templates = new LinkedHashMap<>();
+        templates.put(byte[].class, feeChargedRawKafkaTemplate);
+        templates.put(FeeChargedEvent.class, feeChargedKafkaTemplate);
+        // The DLQ has fewer partitions than the source topics, let the producer pick one
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(templates,
+                (record, e) -> new TopicPartition(TOPIC_FEE_CHARGED_DLQ, -1));
+
+        ExponentialBackOff backOff = new ExponentialBackOff(initialBackoff.toMillis(), 2.0);
+        backOff.setMaxInterval(maxBackoff.toMillis());
+
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer, backOff);
+        errorHandler.setCommitRecovered(true);
+        return errorHandler;
+    }
+
+    /**
+     * Listeners receive FeeChargedEvent directly (binary or older JSON messages)
+     * A message that cannot be decoded is not retried: ErrorHandlingDeserializer hands it to the error handler
+     * (record listeners), batch listeners fail the batch at it with BatchListenerFailedException
+     */
+    @Bean
+    @ConditionalOnProperty(name = "fee.kafka.enabled", havingValue = "true", matchIfMissing = true)
+    public ConsumerFactory<String, FeeChargedEvent> feeChargedConsumerFactory(KafkaProperties kafkaProperties) {
+        return new DefaultKafkaConsumerFactory<>(kafkaProperties.buildConsumerProperties(null),
+                new StringDeserializer(), new ErrorHandlingDeserializer<>(new FeeChargedEventDeserializer()));
+    }
+
+    /**
+     * Replaces the auto-configured factory, spring.kafka.listener.* still applies through the configurer
+     */
+    @Bean
+    @ConditionalOnProperty(name = "fee.kafka.enabled", havingValue = "true", matchIfMissing = true)
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ConcurrentKafkaListenerContainerFactory<String, FeeChargedEvent> kafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<String, FeeChargedEvent> feeChargedConsumerFactory,
+            DefaultErrorHandler feeChargedErrorHandler) {
+        ConcurrentKafkaListenerContainerFactory<String, FeeChargedEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure((ConcurrentKafkaListenerContainerFactory) factory, (ConsumerFactory) feeChargedConsumerFactory);
+        factory.setCommonErrorHandler(feeChargedErrorHandler);
+        return factory;
+    }
+
+    /**
+     * Batch listeners of FeeChargedEvent: the records of one poll are passed as a List
+     * and their offsets committed once after the listener returns
+     * Concurrency comes from spring.kafka.listener.concurrency (one consumer per partition of payment.fee.charged.v1)
+     */
+    @Bean
+    @ConditionalOnProperty(name = "fee.kafka.enabled", havingValue = "true", matchIfMissing = true)
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ConcurrentKafkaListenerContainerFactory<String, FeeChargedEvent> feeChargedBatchListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<String, FeeChargedEvent> feeChargedConsumerFactory,
+            DefaultErrorHandler feeChargedErrorHandler) {
+        ConcurrentKafkaListenerContainerFactory<String, FeeChargedEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure((ConcurrentKafkaListenerContainerFactory) factory, (ConsumerFactory) feeChargedConsumerFactory);
+        factory.setCommonErrorHandler(feeChargedErrorHandler);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        return factory;
+    }
+
+    /**
+     * Retry tier listeners acknowledge manually: a record that is not due yet is nacked with the remaining delay,
+     * the container then pauses the consumer (it keeps polling, so no rebalance) instead of sleeping the thread
+     */
+    @Bean
+    @ConditionalOnProperty(name = "fee.kafka.enabled", havingValue = "true", matchIfMissing = true)
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ConcurrentKafkaListenerContainerFactory<String, FeeChargedEvent> feeChargedRetryListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<String, FeeChargedEvent> feeChargedConsumerFactory,
+            DefaultErrorHandler feeChargedErrorHandler) {
+        ConcurrentKafkaListenerContainerFactory<String, FeeChargedEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure((ConcurrentKafkaListenerContainerFactory) factory, (ConsumerFactory) feeChargedConsumerFactory);
+        factory.setCommonErrorHandler(feeChargedErrorHandler);
+        factory.setBatchListener(false);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        return factory;
+    }
+}
@@ -5,20 +5,26 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.hdbank.customer_fee_service.cache.TwoTierCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.util.Set;
 
 @Configuration
 @EnableCaching
@@ -26,8 +32,37 @@ import java.time.Duration;
 @ConditionalOnProperty(name = "spring.cache.type", havingValue = "redis", matchIfMissing = true)
 public class RedisConfig {
 
+    /**
+     * Redis caches behind a local Caffeine tier (see TwoTierCacheManager)
+     * Keep fee.cache.l1.ttl well below the Redis TTLs: it only bounds staleness when an invalidation is missed
+     */
     @Bean
-    public CacheManager cacheManger(RedisConnectionFactory connectionFactory) {
+    public TwoTierCacheManager cacheManger(RedisConnectionFactory connectionFactory,
+                                           StringRedisTemplate stringRedisTemplate,
+                                           MeterRegistry meterRegistry,
+                                           @Value("${fee.cache.invalidation-channel:fee-cache-invalidation}") String channel,
+                                           @Value("${fee.cache.l1.max-size:10000}") long localMaxSize,
+                                           @Value("${fee.cache.l1.ttl:60s}") Duration localTtl,
+                                           @Value("${fee.cache.load-lock.ttl:5s}") Duration loadLockTtl,
+                                           @Value("${fee.cache.refresh-ahead.caches:feeConfigs}") Set<String> refreshAheadCaches,
+                                           @Value("${fee.cache.refresh-ahead.beta:1.0}") double refreshAheadBeta) {
+        return new TwoTierCacheManager(redisCacheManager(connectionFactory), stringRedisTemplate, meterRegistry,
+                channel, localMaxSize, localTtl, loadLockTtl, refreshAheadCaches, refreshAheadBeta);
+    }
+
+    /**
+     * Every node subscribes to the invalidation channel to drop its local entries
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            TwoTierCacheManager cacheManger) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManger, new ChannelTopic(cacheManger.getChannel()));
+        return container;
+    }
+
+    private RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory) {
         // Config objectMapper for Redis serialization with proper type handling
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
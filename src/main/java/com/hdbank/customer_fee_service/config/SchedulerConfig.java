@@ -1,9 +1,44 @@
 package com.hdbank.customer_fee_service.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 @Configuration
 @EnableScheduling
 public class SchedulerConfig {
+
+    /**
+     * Bounded worker pool used by FeeJobExecuteScheduler to run job partitions concurrently
+     * Every worker uses one DB connection at a time, so keep worker-threads below the connection pool size
+     */
+    @Bean
+    public ThreadPoolTaskExecutor feeJobExecutor(
+            @Value("${fee.job.execute.worker-threads:4}") int workerThreads,
+            @Value("${fee.job.execute.partitions:4}") int partitions) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workerThreads);
+        executor.setMaxPoolSize(workerThreads);
+        executor.setQueueCapacity(partitions);
+        executor.setThreadNamePrefix("fee-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        return executor;
+    }
+
+    /**
+     * Single worker running DLQ replays one after the other, so the configured rates never add up
+     */
+    @Bean
+    public ThreadPoolTaskExecutor feeDlqReplayExecutor(
+            @Value("${fee.dlq.replay.max-queued:5}") int maxQueued) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(maxQueued);
+        executor.setThreadNamePrefix("fee-dlq-replay-");
+        return executor;
+    }
 }
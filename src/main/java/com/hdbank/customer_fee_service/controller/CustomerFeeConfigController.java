@@ -6,6 +6,7 @@ import com.hdbank.customer_fee_service.dto.request.UpdateFeeConfigRequest;
 import com.hdbank.customer_fee_service.dto.response.ApiDataResponse;
 import com.hdbank.customer_fee_service.dto.response.FeeConfigResponse;
 import com.hdbank.customer_fee_service.dto.response.FeePreviewResponse;
+import com.hdbank.customer_fee_service.service.FeeConfigImportService;
 import com.hdbank.customer_fee_service.service.FeeConfigService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -13,10 +14,15 @@ import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -26,8 +32,13 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -37,7 +48,10 @@ import java.util.List;
 @Tag(name = "Fee Configuration", description = "APIs for managing customer fee configurations")
 public class CustomerFeeConfigController {
 
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
     private final FeeConfigService feeConfigService;
+    private final FeeConfigImportService feeConfigImportService;
 
     @PostMapping
     @Operation(
@@ -150,13 +164,16 @@ public class CustomerFeeConfigController {
     @GetMapping("/customer/{customerId}/active")
     @Operation(
             summary = "Get active fee config for customer",
-            description = "Get the currently active fee configuration for a customer"
+            description = "Get the fee configuration active today, or on the given date (yyyy-MM-dd), for a customer"
     )
     public ResponseEntity<ApiDataResponse<FeeConfigResponse>> getActiveFeeConfigByCustomerId(
-            @PathVariable Long customerId
+            @PathVariable Long customerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date
     ) {
         log.info("GET /api/v1/fee-configs/customer/{}/active - Getting active Fee config for customer", customerId);
-        FeeConfigResponse response = feeConfigService.getActiveFeeConfigByCustomerId(customerId);
+        FeeConfigResponse response = date != null
+                ? feeConfigService.getFeeConfigByCustomerIdAndDate(customerId, date)
+                : feeConfigService.getActiveFeeConfigByCustomerId(customerId);
         return ResponseEntity
                 .ok(ApiDataResponse.success(response, "Active Fee config retrieved successfully"));
     }
@@ -196,6 +213,33 @@ public class CustomerFeeConfigController {
                 .ok(ApiDataResponse.success(null, "Fee config deleted successfully"));
     }
 
+    @PostMapping(
+            value = "/import",
+            consumes = {"application/x-ndjson", "text/csv"},
+            produces = "application/x-ndjson"
+    )
+    @Operation(
+            summary = "Bulk import fee configurations",
+            description = "Create fee configurations from an NDJSON body (one create request per line) or a CSV body " +
+                    "(header line, then one row per line). Rows are validated and inserted in chunks; the response " +
+                    "streams one result line per row (CREATED or REJECTED) followed by a SUMMARY line"
+    )
+    public void importFeeConfigs(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        log.info("POST /api/v1/fee-configs/import - Importing Fee configs ({})", contentType);
+        FeeConfigImportService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(TEXT_CSV)
+                ? FeeConfigImportService.Format.CSV
+                : FeeConfigImportService.Format.NDJSON;
+
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        feeConfigImportService.importConfigs(request.getInputStream(), format, response.getOutputStream());
+    }
+
     @PostMapping("/preview")
     public ResponseEntity<ApiDataResponse<FeePreviewResponse>> previewFee(
             @Valid @RequestBody FeePreviewRequest request) {
@@ -0,0 +1,88 @@
+package com.hdbank.customer_fee_service.controller;
+
+import com.hdbank.customer_fee_service.dto.request.FeeChargedDlqReplayRequest;
+import com.hdbank.customer_fee_service.dto.response.ApiDataResponse;
+import com.hdbank.customer_fee_service.dto.response.FeeChargedDlqReplayResponse;
+import com.hdbank.customer_fee_service.dto.response.FeeChargedDlqResponse;
+import com.hdbank.customer_fee_service.service.FeeChargedDlqService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/fee-charges/dlq")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Fee Charge DLQ", description = "APIs for inspecting and replaying FeeChargedEvents from the DLQ")
+public class FeeChargedDlqController {
+
+    private final FeeChargedDlqService dlqService;
+
+    @GetMapping
+    @Operation(
+            summary = "Get DLQ events",
+            description = "DLQ events ordered by id, filtered by billingMonth/customerId. Page with afterId = last id returned"
+    )
+    public ResponseEntity<ApiDataResponse<List<FeeChargedDlqResponse>>> getDlqEvents(
+            @RequestParam(required = false) String billingMonth,
+            @RequestParam(required = false) Long customerId,
+            @RequestParam(defaultValue = "false") boolean includeReplayed,
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "50")
+            @Min(value = 1, message = "Size must be at least 1")
+            @Max(value = 500, message = "Size must be at most 500") int size
+    ) {
+        log.info("GET /api/v1/fee-charges/dlq - billingMonth: {}, customerId: {}, afterId: {}",
+                billingMonth, customerId, afterId);
+
+        List<FeeChargedDlqResponse> responses = dlqService
+                .getDlqEvents(billingMonth, customerId, includeReplayed, afterId, size)
+                .stream()
+                .map(FeeChargedDlqResponse::from)
+                .toList();
+
+        return ResponseEntity.ok(ApiDataResponse.success(responses));
+    }
+
+    @PostMapping("/replays")
+    @Operation(
+            summary = "Replay DLQ events",
+            description = "Re-publish the selected (ids) or filtered DLQ events to payment.fee.charged.v1 at a throttled rate. " +
+                    "Runs in the background, poll the returned replay for progress"
+    )
+    public ResponseEntity<ApiDataResponse<FeeChargedDlqReplayResponse>> replay(
+            @Valid @RequestBody FeeChargedDlqReplayRequest request
+    ) {
+        log.info("POST /api/v1/fee-charges/dlq/replays - billingMonth: {}, customerId: {}",
+                request.getBillingMonth(), request.getCustomerId());
+        FeeChargedDlqReplayResponse replay = dlqService.startReplay(request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiDataResponse.success(replay, "DLQ replay queued"));
+    }
+
+    @GetMapping("/replays/{replayId}")
+    @Operation(
+            summary = "Get DLQ replay progress",
+            description = "Status and published/failed counts of a DLQ replay"
+    )
+    public ResponseEntity<ApiDataResponse<FeeChargedDlqReplayResponse>> getReplay(
+            @PathVariable String replayId
+    ) {
+        return ResponseEntity.ok(ApiDataResponse.success(dlqService.getReplay(replayId)));
+    }
+}
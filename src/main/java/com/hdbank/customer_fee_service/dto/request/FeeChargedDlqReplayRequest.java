@@ -0,0 +1,40 @@
+package com.hdbank.customer_fee_service.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DLQ events to re-publish: either explicit ids, or a filter (billing month and/or customer)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeChargedDlqReplayRequest {
+
+    @JsonProperty("ids")
+    private List<Long> ids;
+
+    @Pattern(regexp = "\\d{4}-\\d{2}", message = "Billing month must be yyyy-MM")
+    @JsonProperty("billing_month")
+    private String billingMonth;
+
+    @JsonProperty("customer_id")
+    private Long customerId;
+
+    // Also re-publish events that were already replayed once
+    @JsonProperty("include_replayed")
+    private boolean includeReplayed;
+
+    // Overrides fee.dlq.replay.rate-per-second for this replay
+    @Min(value = 1, message = "Rate must be at least 1 event per second")
+    @Max(value = 10000, message = "Rate must be at most 10000 events per second")
+    @JsonProperty("rate_per_second")
+    private Integer ratePerSecond;
+}
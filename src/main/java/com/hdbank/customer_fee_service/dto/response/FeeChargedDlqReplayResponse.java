@@ -0,0 +1,27 @@
+package com.hdbank.customer_fee_service.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Progress of a DLQ replay, polled with GET /api/v1/fee-charges/dlq/replays/{replayId}
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeChargedDlqReplayResponse {
+    private String replayId;
+    private String status;  // QUEUED, RUNNING, COMPLETED, FAILED
+    private Long total;
+    private Long published;
+    private Long failed;
+    private Integer ratePerSecond;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String error;
+}
@@ -0,0 +1,48 @@
+package com.hdbank.customer_fee_service.dto.response;
+
+import com.hdbank.customer_fee_service.entity.FeeChargedDlq;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeChargedDlqResponse {
+    private Long id;
+    private String eventId;
+    private Long jobId;
+    private Long customerId;
+    private Long feeConfigId;
+    private BigDecimal chargedAmount;
+    private String currency;
+    private String billingMonth;
+    private Integer retryAttempts;
+    private String lastError;
+    private Instant receivedAt;
+    private Instant replayedAt;
+    private Integer replayCount;
+
+    public static FeeChargedDlqResponse from(FeeChargedDlq dlq) {
+        return FeeChargedDlqResponse.builder()
+                .id(dlq.getId())
+                .eventId(dlq.getEventId())
+                .jobId(dlq.getJobId())
+                .customerId(dlq.getCustomerId())
+                .feeConfigId(dlq.getFeeConfigId())
+                .chargedAmount(dlq.getChargedAmount())
+                .currency(dlq.getCurrency())
+                .billingMonth(dlq.getBillingMonth())
+                .retryAttempts(dlq.getRetryAttempts())
+                .lastError(dlq.getLastError())
+                .receivedAt(dlq.getReceivedAt())
+                .replayedAt(dlq.getReplayedAt())
+                .replayCount(dlq.getReplayCount())
+                .build();
+    }
+}
@@ -0,0 +1,38 @@
+package com.hdbank.customer_fee_service.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of the POST /api/v1/fee-configs/import result stream (NDJSON)
+ * A line per input row (CREATED or REJECTED), in input order, then a SUMMARY line.
+ * ABORTED is written before the summary when the import stopped early; rows from its line on were not processed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FeeConfigImportResult {
+
+    private String status;  // CREATED, REJECTED, ABORTED, SUMMARY
+
+    private Long line;  // Line of the row in the input (ABORTED: first line not processed)
+
+    @JsonProperty("customer_id")
+    private Long customerId;
+
+    @JsonProperty("config_id")
+    private Long configId;
+
+    private String error;
+
+    // SUMMARY only
+    private Long total;
+    private Long created;
+    private Long rejected;
+}
@@ -43,6 +43,16 @@ public class CustomerFeeJob extends BaseEntity {
     @Column(name = "idempotency_key", nullable = false, unique = true)
     private String idempotencyKey;  // Format: {customer_id}_{billing_month}
 
+    @Column(name = "claimed_by")
+    private String claimedBy;  // Executor node that claimed the job
+
+    @Column(name = "claimed_at")
+    private Instant claimedAt;
+
+    @Builder.Default
+    @Column(name = "attempt_count", nullable = false)
+    private Integer attemptCount = 0;  // Incremented every time the job is claimed/started
+
     @Column(name = "deleted_at")
     private Instant deletedAt;
 
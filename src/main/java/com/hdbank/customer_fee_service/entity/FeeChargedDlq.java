@@ -0,0 +1,87 @@
+package com.hdbank.customer_fee_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * FeeChargedEvent that reached the DLQ (payment.fee.charged.dlq.v1) after every retry tier
+ * Rows are written in batches by FeeChargedDLQConsumer and re-published by FeeChargedDlqService.replay
+ */
+@Entity
+@Table(name = "fee_charged_dlq")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeChargedDlq {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id", length = 64)
+    private String eventId;  // NULL when the DLQ record had none, such rows are never replayed
+
+    @Column(name = "event_type", length = 50)
+    private String eventType;
+
+    @Column(name = "event_time", length = 40)
+    private String eventTime;
+
+    @Column(name = "job_id")
+    private Long jobId;
+
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Column(name = "fee_config_id")
+    private Long feeConfigId;
+
+    @Column(name = "charged_amount", precision = 15, scale = 2)
+    private BigDecimal chargedAmount;
+
+    @Column(name = "currency", length = 3)
+    private String currency;
+
+    @Column(name = "billing_month", length = 7)
+    private String billingMonth;
+
+    @Builder.Default
+    @Column(name = "retry_attempts", nullable = false)
+    private Integer retryAttempts = 0;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "source_topic", nullable = false)
+    private String sourceTopic;
+
+    @Column(name = "source_partition", nullable = false)
+    private Integer sourcePartition;
+
+    @Column(name = "source_offset", nullable = false)
+    private Long sourceOffset;
+
+    @Column(name = "received_at", nullable = false, updatable = false)
+    private Instant receivedAt;
+
+    @Column(name = "replayed_at")
+    private Instant replayedAt;
+
+    @Builder.Default
+    @Column(name = "replay_count", nullable = false)
+    private Integer replayCount = 0;
+
+    @PrePersist
+    protected void onCreate() {
+        if (receivedAt == null) {
+            receivedAt = Instant.now();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.hdbank.customer_fee_service.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Outbox row of a FeeChargedEvent
+ * Written in the same transaction as the SUCCESS FeeChargeAttempt, so an event exists if and only if the charge committed
+ * sent_at is set by FeeChargedOutboxRelay once the broker acknowledged the event (at-least-once)
+ */
+@Entity
+@Table(name = "fee_charged_outbox")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeChargedOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id", nullable = false, unique = true, length = 36)
+    private String eventId;
+
+    @Builder.Default
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType = "FEE_CHARGED";
+
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Column(name = "fee_config_id")
+    private Long feeConfigId;
+
+    @Column(name = "charged_amount", nullable = false, precision = 15, scale = 2)
+    private BigDecimal chargedAmount;
+
+    @Column(name = "currency", nullable = false, length = 3)
+    private String currency;
+
+    @Column(name = "billing_month", nullable = false, length = 7)
+    private String billingMonth;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "sent_at")
+    private Instant sentAt;
+
+    @Column(name = "next_attempt_at")
+    private Instant nextAttemptAt;  // Claimed by a relay or backing off until then, NULL = due now
+
+    @Builder.Default
+    @Column(name = "send_attempts", nullable = false)
+    private Integer sendAttempts = 0;
+
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = Instant.now();
+        }
+    }
+}
@@ -2,13 +2,16 @@ package com.hdbank.customer_fee_service.exception;
 
 import com.hdbank.customer_fee_service.dto.response.ApiDataResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.MessageSourceResolvable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
+import org.springframework.validation.method.ParameterValidationResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -60,6 +63,31 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
     }
 
+    /**
+     * handle constraint violations on controller parameters (@RequestParam, @PathVariable)
+     */
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<ApiDataResponse<Void>> handleHandlerMethodValidationException(
+            HandlerMethodValidationException ex,
+            WebRequest request) {
+        log.error("Handler method validation exception: {}", ex.getMessage());
+        log.debug("Request details: {}", request.getDescription(false));
+
+        List<ApiDataResponse.ErrorDetail> errors = new ArrayList<>();
+        for (ParameterValidationResult result : ex.getParameterValidationResults()) {
+            for (MessageSourceResolvable error : result.getResolvableErrors()) {
+                ApiDataResponse.ErrorDetail errorDetail = ApiDataResponse.ErrorDetail.builder()
+                        .field(result.getMethodParameter().getParameterName())
+                        .message(error.getDefaultMessage())
+                        .rejectedValue(result.getArgument())
+                        .build();
+                errors.add(errorDetail);
+            }
+        }
+        ApiDataResponse<Void> response = ApiDataResponse.validationError(errors);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    }
+
     @ExceptionHandler(BusinessException.class)
     public ResponseEntity<ApiDataResponse<Void>> handleBusinessException(
             BusinessException ex,
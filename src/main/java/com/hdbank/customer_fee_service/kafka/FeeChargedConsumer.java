@@ -1,144 +1,216 @@
 package com.hdbank.customer_fee_service.kafka;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.hdbank.customer_fee_service.config.KafkaConfig;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.KafkaHeaders;
-import org.springframework.messaging.handler.annotation.Header;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Retryable;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
-import java.util.Map;
-
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumer of payment.fee.charged.v1
+ * Batch mode (fee.kafka.consumer.batch-enabled=true): one poll is handled as a List of records,
+ * a failing record is routed to retry/DLQ without failing the rest, offsets are committed once per batch
+ * after the routed records are acked. Otherwise the single-record listener runs.
+ * When a retry/DLQ send is not acked, the batch fails with BatchListenerFailedException at that record:
+ * the offsets before it are committed and the error handler (KafkaConfig) redelivers from it with backoff
+ * until it is routed. An undecodable record fails the batch the same way and is sent to the DLQ as received.
+ * Records after the failed one are redelivered,
+ * so processed event ids are remembered (fee.kafka.consumer.dedup.*) and a redelivered one is skipped.
+ * The memory is per instance: a record redelivered to another instance after a rebalance is processed again.
+ * Failures are never retried in place (no sleep on the consumer thread): FeeChargedRetryRouter sends them
+ * to the delayed retry tiers (1s, 10s, 60s) and then the DLQ, so healthy traffic keeps flowing.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class FeeChargedConsumer {
 
-    private final ObjectMapper objectMapper;
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final FeeChargedRetryRouter retryRouter;
+
+    @Value("${fee.kafka.consumer.dedup.max-size:100000}")
+    private long dedupMaxSize;
+
+    @Value("${fee.kafka.consumer.dedup.ttl:10m}")
+    private Duration dedupTtl;
+
+    // Event ids processed recently, shared by the listener threads
+    private Cache<String, Boolean> processedEventIds;
 
-    // In-memory cache to track retry counts per event
-    private final Map<String, Integer> retryCountMap = new HashMap<>();
-    private static final int MAX_RETRY_ATTEMPTS = 3;
+    @PostConstruct
+    void initDedup() {
+        processedEventIds = Caffeine.newBuilder()
+                .maximumSize(dedupMaxSize)
+                .expireAfterWrite(dedupTtl)
+                .build();
+    }
 
     @KafkaListener(
+            id = "feeChargedListener",
             topics = KafkaConfig.TOPIC_FEE_CHARGED,
             groupId = "${spring.kafka.consumer.group-id}",
-            containerFactory = "kafkaListenerContainerFactory"
-    )
-    @Retryable(
-            retryFor = {Exception.class},
-            maxAttempts = 3,
-            backoff = @Backoff(delay = 1000, multiplier = 2.0)  // 1s, 2s, 4s
+            containerFactory = "kafkaListenerContainerFactory",
+            autoStartup = "#{!${fee.kafka.consumer.batch-enabled:true}}"
     )
-    public void consumeFeeChargedEvent(
-            String eventJson,
-            @Header(value = KafkaHeaders.RECEIVED_KEY, required = false) String key
-    ) throws JsonProcessingException {
+    public void consumeFeeChargedEvent(ConsumerRecord<String, FeeChargedEvent> record) {
         log.info("Received message from topic: {}", KafkaConfig.TOPIC_FEE_CHARGED);
 
-        try {
-            // Deserialize JSON string to FeeChargedEvent object
-            FeeChargedEvent event = objectMapper.readValue(eventJson, FeeChargedEvent.class);
-
-            log.info("Processing FeeChargedEvent: eventId={}, customerId={}, amount={} {}",
-                    event.getEventId(),
-                    event.getCustomerId(),
-                    event.getChargedAmount(),
-                    event.getCurrency());
-
-            // Check if this event has been retried too many times
-            int retryCount = retryCountMap.getOrDefault(event.getEventId(), 0);
+        FeeChargedEvent event = record.value();
+        if (event == null) {
+            // Tombstone: an undecodable value never reaches a record listener, the error handler sends it to the DLQ
+            log.warn("Skipping FeeChargedEvent without a value at {}-{}@{}",
+                    record.topic(), record.partition(), record.offset());
+            return;
+        }
+        int attempt = FeeChargedRetryRouter.attemptOf(record);
 
-            if (retryCount >= MAX_RETRY_ATTEMPTS) {
-                log.error("Event {} exceeded max retry attempts, sending to DLQ", event.getEventId());
-                sendToDLQ(eventJson, event.getEventId());
-                retryCountMap.remove(event.getEventId());
-                return;
+        CompletableFuture<SendResult<String, FeeChargedEvent>> routed;
+        try {
+            routed = handleEvent(event, attempt);
+            if (routed == null) {
+                log.info("FeeChargedEvent processed successfully: {}", event.getEventId());
             }
-
-            processEvent(event);
-
-            retryCountMap.remove(event.getEventId());
-
-            log.info("FeeChargedEvent processed successfully: {}", event.getEventId());
-
         } catch (Exception e) {
-            log.error("Error processing FeeChargedEvent from JSON: {}", eventJson, e);
-
-            String eventId = extractEventId(eventJson);
+            log.error("Error processing FeeChargedEvent: {}", event, e);
+            routed = retryRouter.routeFailure(event, attempt, e);
+        }
+        if (routed != null) {
+            retryRouter.awaitRouted(List.of(routed));
+        }
+    }
 
-            if (eventId != null) {
-                int currentRetry = retryCountMap.getOrDefault(eventId, 0);
-                retryCountMap.put(eventId, currentRetry + 1);
+    /**
+     * Batch listener: records of one poll (up to max.poll.records) processed one by one with error isolation
+     * Offsets of the whole batch are committed when this method returns (AckMode.BATCH)
+     */
+    @KafkaListener(
+            id = "feeChargedBatchListener",
+            topics = KafkaConfig.TOPIC_FEE_CHARGED,
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "feeChargedBatchListenerContainerFactory",
+            autoStartup = "${fee.kafka.consumer.batch-enabled:true}",
+            properties = "max.poll.records=${fee.kafka.consumer.batch.max-poll-records:500}"
+    )
+    public void consumeFeeChargedEvents(List<ConsumerRecord<String, FeeChargedEvent>> records) {
+        long startedAt = System.nanoTime();
+        int success = 0;
+        int skipped = 0;
+        List<CompletableFuture<SendResult<String, FeeChargedEvent>>> routed = new ArrayList<>();
+        List<Integer> routedIndexes = new ArrayList<>();  // Position in records of each routed send
+        int undecodable = -1;  // Position of the first record that could not be decoded
+
+        for (int index = 0; index < records.size(); index++) {
+            ConsumerRecord<String, FeeChargedEvent> record = records.get(index);
+            FeeChargedEvent event = record.value();
+            if (event == null) {
+                if (isUndecodable(record)) {
+                    // Stop here, the records after it are redelivered once the error handler sent it to the DLQ
+                    undecodable = index;
+                    break;
+                }
+                // Tombstone, nothing to process
+                skipped++;
+                continue;
+            }
 
-                if (currentRetry + 1 >= MAX_RETRY_ATTEMPTS) {
-                    log.error("Max retries reached for event {}, sending to DLQ", eventId);
-                    sendToDLQ(eventJson, eventId);
-                    retryCountMap.remove(eventId);
+            int attempt = FeeChargedRetryRouter.attemptOf(record);
+            try {
+                CompletableFuture<SendResult<String, FeeChargedEvent>> dlqSend = handleEvent(event, attempt);
+                if (dlqSend != null) {
+                    routed.add(dlqSend);
+                    routedIndexes.add(index);
                 } else {
-                    log.info("Sending event {} to retry topic (attempt {}/{})",
-                            eventId, currentRetry + 1, MAX_RETRY_ATTEMPTS);
-                    sendToRetryTopic(eventJson, eventId);
+                    success++;
                 }
-            } else {
-                // Can't extract eventId, send directly to DLQ
-                log.error("Cannot extract eventId, sending to DLQ");
-                sendToDLQ(eventJson, "unknown");
+            } catch (Exception e) {
+                log.warn("Error processing FeeChargedEvent {} at {}-{}@{}: {}",
+                        event.getEventId(), record.topic(), record.partition(), record.offset(), e.getMessage());
+                routed.add(retryRouter.routeFailure(event, attempt, e));
+                routedIndexes.add(index);
             }
+        }
 
-            throw e; // Re-throw to trigger @Retryable
+        int failed = retryRouter.awaitRoutedBatch(routed);
+        if (failed >= 0) {
+            // Commit the records before the unrouted one and resume from it
+            throw new BatchListenerFailedException("Failed to route FeeChargedEvent to retry/DLQ",
+                    routedIndexes.get(failed));
         }
+        if (undecodable >= 0) {
+            ConsumerRecord<String, FeeChargedEvent> record = records.get(undecodable);
+            log.error("Undecodable FeeChargedEvent at {}-{}@{}, sending it to the DLQ",
+                    record.topic(), record.partition(), record.offset());
+            // DeserializationException is not retried by the error handler, the record goes straight to the DLQ
+            throw new BatchListenerFailedException("Undecodable FeeChargedEvent",
+                    new DeserializationException("Undecodable FeeChargedEvent", null, false, null), undecodable);
+        }
+        log.info("fee_charged_batch records={} success={} routed={} skipped={} elapsed_ms={}",
+                records.size(), success, routed.size(), skipped,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
     }
 
-    private void processEvent(FeeChargedEvent event) {
-        // TODO: Implement business logic
-        log.info("Processing fee charged event for customer: {}", event.getCustomerId());
-        log.info("Fee amount: {} {}", event.getChargedAmount(), event.getCurrency());
-        log.info("Billing month: {}", event.getBillingMonth());
+    /**
+     * Whether ErrorHandlingDeserializer failed to decode the value (it then carries the error in a header)
+     */
+    private static boolean isUndecodable(ConsumerRecord<?, ?> record) {
+        return record.headers().lastHeader(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER) != null;
+    }
 
-        // Example: Send email notification, update analytics dashboard, etc.
+    /**
+     * Process one event, or send it to the DLQ when it already exceeded the retry attempts
+     * @return the DLQ send, null when the event was processed
+     */
+    private CompletableFuture<SendResult<String, FeeChargedEvent>> handleEvent(FeeChargedEvent event, int attempt) {
+        if (log.isDebugEnabled()) {
+            log.debug("Processing FeeChargedEvent: eventId={}, customerId={}, amount={} {}",
+                    event.getEventId(),
+                    event.getCustomerId(),
+                    event.getChargedAmount(),
+                    event.getCurrency());
+        }
 
-        // Simulate processing (remove in production)
-        if (event.getChargedAmount() == null) {
-            throw new IllegalArgumentException("Charged amount cannot be null");
+        // Check if this event has been retried too many times
+        if (retryRouter.isExhausted(attempt)) {
+            log.error("Event {} exceeded max retry attempts, sending to DLQ", event.getEventId());
+            return retryRouter.sendToDLQ(event, attempt, null);
         }
-    }
 
-    private void sendToRetryTopic(String eventJson, String eventId) {
-        try {
-            kafkaTemplate.send(KafkaConfig.TOPIC_FEE_CHARGED_RETRY, eventId, eventJson);
-            log.info("Event {} sent to retry topic", eventId);
-        } catch (Exception e) {
-            log.error("Error sending event to retry topic", e);
-            sendToDLQ(eventJson, eventId);
+        if (processedEventIds.getIfPresent(event.getEventId()) != null) {
+            log.debug("Skipping already processed FeeChargedEvent {}", event.getEventId());
+            return null;
         }
+        processEvent(event);
+        processedEventIds.put(event.getEventId(), Boolean.TRUE);
+        return null;
     }
 
-    private void sendToDLQ(String eventJson, String eventId) {
-        try {
-            kafkaTemplate.send(KafkaConfig.TOPIC_FEE_CHARGED_DLQ, eventId, eventJson);
-            log.info("Event {} sent to DLQ", eventId);
-        } catch (Exception e) {
-            log.error("CRITICAL: Failed to send event to DLQ", e);
-            // TODO: Alert ops team
+    private void processEvent(FeeChargedEvent event) {
+        // TODO: Implement business logic
+        if (log.isDebugEnabled()) {
+            log.debug("Processing fee charged event for customer: {}", event.getCustomerId());
+            log.debug("Fee amount: {} {}", event.getChargedAmount(), event.getCurrency());
+            log.debug("Billing month: {}", event.getBillingMonth());
         }
-    }
 
-    private String extractEventId(String eventJson) {
-        try {
-            FeeChargedEvent event = objectMapper.readValue(eventJson, FeeChargedEvent.class);
-            return event.getEventId();
-        } catch (Exception e) {
-            log.warn("Cannot extract eventId from JSON", e);
-            return null;
+        // Example: Send email notification, update analytics dashboard, etc.
+
+        // Simulate processing (remove in production)
+        if (event.getChargedAmount() == null) {
+            throw new IllegalArgumentException("Charged amount cannot be null");
         }
     }
-}
\ No newline at end of file
+}
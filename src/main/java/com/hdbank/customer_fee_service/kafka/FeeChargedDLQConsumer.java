@@ -1,53 +1,51 @@
 package com.hdbank.customer_fee_service.kafka;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hdbank.customer_fee_service.config.KafkaConfig;
+import com.hdbank.customer_fee_service.service.FeeChargedDlqService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 /**
  * Dead Letter Queue Consumer
- * This consumer only LOGS failed events for manual investigation
- * DO NOT process or retry events from DLQ automatically
+ * Stores failed events in fee_charged_dlq (one JDBC batch per poll) for investigation and replay
+ * DO NOT process or retry events from DLQ automatically, replays are started through the DLQ API
+ * If the insert fails the batch is not committed and is redelivered (duplicates are ignored on insert)
  */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class FeeChargedDLQConsumer {
 
-    private final ObjectMapper objectMapper;
+    private final FeeChargedDlqService dlqService;
 
     @KafkaListener(
             topics = KafkaConfig.TOPIC_FEE_CHARGED_DLQ,
             groupId = "${spring.kafka.consumer.group-id}-dlq",
-            containerFactory = "kafkaListenerContainerFactory"
+            containerFactory = "feeChargedBatchListenerContainerFactory"
     )
-    public void consumeDLQEvent(String eventJson) {
-        log.error("DLQ: Received failed event from topic: {}", KafkaConfig.TOPIC_FEE_CHARGED_DLQ);
-        log.error("DLQ: Raw JSON: {}", eventJson);
-
-        try {
-            FeeChargedEvent event = objectMapper.readValue(eventJson, FeeChargedEvent.class);
-
-            log.error("DLQ: Failed event details:");
-            log.error("  - Event ID: {}", event.getEventId());
-            log.error("  - Customer ID: {}", event.getCustomerId());
-            log.error("  - Job ID: {}", event.getJobId());
-            log.error("  - Amount: {} {}", event.getChargedAmount(), event.getCurrency());
-            log.error("  - Billing Month: {}", event.getBillingMonth());
-            log.error("  - Event Time: {}", event.getEventTime());
-
-        } catch (Exception e) {
-            log.error("DLQ: Cannot parse event JSON", e);
+    public void consumeDLQEvents(List<ConsumerRecord<String, FeeChargedEvent>> records) {
+        for (ConsumerRecord<String, FeeChargedEvent> record : records) {
+            FeeChargedEvent event = record.value();
+            if (event == null) {
+                // Sent here as received by the error handler (kafka_dlt-* headers), it stays on the topic only
+                log.error("DLQ: Undecodable event at {}-{}@{}, cannot be stored",
+                        record.topic(), record.partition(), record.offset());
+                continue;
+            }
+            log.error("DLQ: Failed event eventId={}, customerId={}, jobId={}, amount={} {}, billingMonth={}",
+                    event.getEventId(), event.getCustomerId(), event.getJobId(),
+                    event.getChargedAmount(), event.getCurrency(), event.getBillingMonth());
         }
 
-        log.error("DLQ: This event requires MANUAL investigation and resolution");
+        int stored = dlqService.store(records);
+        log.error("DLQ: Stored {} of {} failed events in fee_charged_dlq, they require investigation and replay",
+                stored, records.size());
 
-        // TODO: Integrate with monitoring/alerting system
-        // - Send alert to ops team (email, Slack, PagerDuty)
-        // - Store in separate DLQ database table for investigation
-        // - Create JIRA ticket automatically
+        // TODO: Integrate with monitoring/alerting system (alert on fee.dlq.stored)
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,292 @@
+package com.hdbank.customer_fee_service.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.UUID;
+
+/**
+ * Wire format of FeeChargedEvent
+ * Binary V1 (written by this version):
+ *   [version=1][flags][event_id][event_time][job_id][customer_id][fee_config_id][charged_amount][currency][billing_month][event_type]
+ *   - event_id: 16 bytes when it is a UUID (flag), otherwise a string
+ *   - event_time: varlong seconds + varint nanos when it is a canonical Instant (flag), otherwise a string
+ *   - ids: zigzag varlong, absent when null (flags)
+ *   - charged_amount: varint scale + zigzag varlong unscaled value (or length-prefixed bytes when it does not fit a long)
+ *   - strings: varint (length + 1) then UTF-8 bytes, 0 = null
+ * JSON (older messages): starts with '{', decoded with Jackson
+ * A new layout gets a new version byte, readers keep decoding the older ones
+ */
+public final class FeeChargedEventCodec {
+
+    public static final byte VERSION_1 = 1;
+    private static final byte JSON_START = '{';
+
+    // Flags of V1
+    private static final int UUID_EVENT_ID = 1;
+    private static final int INSTANT_EVENT_TIME = 1 << 1;
+    private static final int HAS_JOB_ID = 1 << 2;
+    private static final int HAS_CUSTOMER_ID = 1 << 3;
+    private static final int HAS_FEE_CONFIG_ID = 1 << 4;
+    private static final int HAS_AMOUNT = 1 << 5;
+    private static final int BIG_AMOUNT = 1 << 6;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private FeeChargedEventCodec() {
+    }
+
+    public static byte[] encode(FeeChargedEvent event) {
+        UUID uuidEventId = parseUuid(event.getEventId());
+        Instant instantEventTime = parseCanonicalInstant(event.getEventTime());
+        BigDecimal amount = event.getChargedAmount();
+        boolean bigAmount = amount != null && amount.unscaledValue().bitLength() > 63;
+
+        int flags = 0;
+        if (uuidEventId != null) flags |= UUID_EVENT_ID;
+        if (instantEventTime != null) flags |= INSTANT_EVENT_TIME;
+        if (event.getJobId() != null) flags |= HAS_JOB_ID;
+        if (event.getCustomerId() != null) flags |= HAS_CUSTOMER_ID;
+        if (event.getFeeConfigId() != null) flags |= HAS_FEE_CONFIG_ID;
+        if (amount != null) flags |= HAS_AMOUNT;
+        if (bigAmount) flags |= BIG_AMOUNT;
+
+        Writer out = new Writer();
+        out.writeByte(VERSION_1);
+        out.writeByte(flags);
+
+        if (uuidEventId != null) {
+            out.writeLong(uuidEventId.getMostSignificantBits());
+            out.writeLong(uuidEventId.getLeastSignificantBits());
+        } else {
+            out.writeString(event.getEventId());
+        }
+
+        if (instantEventTime != null) {
+            out.writeVarLong(zigZag(instantEventTime.getEpochSecond()));
+            out.writeVarLong(instantEventTime.getNano());
+        } else {
+            out.writeString(event.getEventTime());
+        }
+
+        if (event.getJobId() != null) out.writeVarLong(zigZag(event.getJobId()));
+        if (event.getCustomerId() != null) out.writeVarLong(zigZag(event.getCustomerId()));
+        if (event.getFeeConfigId() != null) out.writeVarLong(zigZag(event.getFeeConfigId()));
+
+        if (amount != null) {
+            out.writeVarLong(zigZag(amount.scale()));
+            if (bigAmount) {
+                out.writeBytes(amount.unscaledValue().toByteArray());
+            } else {
+                out.writeVarLong(zigZag(amount.unscaledValue().longValue()));
+            }
+        }
+
+        out.writeString(event.getCurrency());
+        out.writeString(event.getBillingMonth());
+        out.writeString(event.getEventType());
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode a binary (any known version) or JSON message
+     */
+    public static FeeChargedEvent decode(byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        if (data[0] == JSON_START) {
+            return decodeJson(data);
+        }
+        if (data[0] == VERSION_1) {
+            return decodeV1(data);
+        }
+        throw new SerializationException("Unknown FeeChargedEvent format version: " + data[0]);
+    }
+
+    private static FeeChargedEvent decodeJson(byte[] data) {
+        try {
+            return OBJECT_MAPPER.readValue(data, FeeChargedEvent.class);
+        } catch (IOException e) {
+            throw new SerializationException("Invalid FeeChargedEvent JSON", e);
+        }
+    }
+
+    private static FeeChargedEvent decodeV1(byte[] data) {
+        try {
+            Reader in = new Reader(data, 1);
+            int flags = in.readByte();
+
+            FeeChargedEvent.FeeChargedEventBuilder event = FeeChargedEvent.builder();
+
+            if ((flags & UUID_EVENT_ID) != 0) {
+                event.eventId(new UUID(in.readLong(), in.readLong()).toString());
+            } else {
+                event.eventId(in.readString());
+            }
+
+            if ((flags & INSTANT_EVENT_TIME) != 0) {
+                long seconds = unZigZag(in.readVarLong());
+                int nanos = (int) in.readVarLong();
+                event.eventTime(Instant.ofEpochSecond(seconds, nanos).toString());
+            } else {
+                event.eventTime(in.readString());
+            }
+
+            if ((flags & HAS_JOB_ID) != 0) event.jobId(unZigZag(in.readVarLong()));
+            if ((flags & HAS_CUSTOMER_ID) != 0) event.customerId(unZigZag(in.readVarLong()));
+            if ((flags & HAS_FEE_CONFIG_ID) != 0) event.feeConfigId(unZigZag(in.readVarLong()));
+
+            if ((flags & HAS_AMOUNT) != 0) {
+                int scale = (int) unZigZag(in.readVarLong());
+                BigInteger unscaled = (flags & BIG_AMOUNT) != 0
+                        ? new BigInteger(in.readBytes())
+                        : BigInteger.valueOf(unZigZag(in.readVarLong()));
+                event.chargedAmount(new BigDecimal(unscaled, scale));
+            }
+
+            event.currency(in.readString());
+            event.billingMonth(in.readString());
+            event.eventType(in.readString());
+            return event.build();
+        } catch (IndexOutOfBoundsException e) {
+            throw new SerializationException("Truncated FeeChargedEvent binary message", e);
+        }
+    }
+
+    private static UUID parseUuid(String value) {
+        if (value == null || value.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(value);
+            // Only when it round-trips to the same text (lower case, canonical form)
+            return uuid.toString().equals(value) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static Instant parseCanonicalInstant(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            Instant instant = Instant.parse(value);
+            return instant.toString().equals(value) ? instant : null;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Writer {
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(96);
+
+        void writeByte(int value) {
+            buffer.write(value);
+        }
+
+        void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer.write((int) (value >>> shift));
+            }
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                buffer.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.write((int) value);
+        }
+
+        void writeBytes(byte[] bytes) {
+            writeVarLong(bytes.length);
+            buffer.writeBytes(bytes);
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1L);
+            buffer.writeBytes(bytes);
+        }
+
+        byte[] toByteArray() {
+            return buffer.toByteArray();
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        int readByte() {
+            return data[position++] & 0xFF;
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | readByte();
+            }
+            return value;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("Malformed varint in FeeChargedEvent");
+        }
+
+        byte[] readBytes() {
+            int length = (int) readVarLong();
+            byte[] bytes = new byte[length];
+            System.arraycopy(data, position, bytes, 0, length);
+            position += length;
+            return bytes;
+        }
+
+        String readString() {
+            int lengthPlusOne = (int) readVarLong();
+            if (lengthPlusOne == 0) {
+                return null;
+            }
+            int length = lengthPlusOne - 1;
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.hdbank.customer_fee_service.kafka;
+
+import org.apache.kafka.common.serialization.Deserializer;
+
+/**
+ * Kafka value deserializer of FeeChargedEvent, reads binary messages and older JSON messages
+ */
+public class FeeChargedEventDeserializer implements Deserializer<FeeChargedEvent> {
+
+    @Override
+    public FeeChargedEvent deserialize(String topic, byte[] data) {
+        return FeeChargedEventCodec.decode(data);
+    }
+}
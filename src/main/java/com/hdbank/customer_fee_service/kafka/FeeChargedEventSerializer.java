@@ -0,0 +1,14 @@
+package com.hdbank.customer_fee_service.kafka;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+/**
+ * Kafka value serializer of FeeChargedEvent, always writes the latest binary version
+ */
+public class FeeChargedEventSerializer implements Serializer<FeeChargedEvent> {
+
+    @Override
+    public byte[] serialize(String topic, FeeChargedEvent event) {
+        return event == null ? null : FeeChargedEventCodec.encode(event);
+    }
+}
@@ -1,53 +1,111 @@
 package com.hdbank.customer_fee_service.kafka;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hdbank.customer_fee_service.config.KafkaConfig;
-import com.hdbank.customer_fee_service.dto.response.FeeChargeResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
-import java.time.Instant;
-import java.util.UUID;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Publishes FeeChargedEvents for FeeChargedOutboxRelay
+ * A batch is sent without waiting between records, so the producer client groups it into compressed record batches
+ * (spring.kafka.producer linger.ms / batch-size / compression-type); the acks are awaited once for the whole batch
+ * Values are encoded by FeeChargedEventSerializer (compact binary, see FeeChargedEventCodec)
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class FeeChargedProducer {
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
-    private final ObjectMapper objectMapper;
+    private final KafkaTemplate<String, FeeChargedEvent> kafkaTemplate;
+    private final MeterRegistry meterRegistry;
 
-    public void publishFeeChargedEvent(FeeChargeResult result) {
-        try {
-            FeeChargedEvent event = FeeChargedEvent.builder()
-                    .eventId(UUID.randomUUID().toString())
-                    .eventTime(Instant.now().toString())
-                    .jobId(result.getJobId())
-                    .customerId(result.getCustomerId())
-                    .feeConfigId(result.getFeeConfigId())
-                    .chargedAmount(result.getChargedAmount())
-                    .currency(result.getCurrency())
-                    .billingMonth(result.getBillingMonth())
-                    .eventType("FEE_CHARGED")
-                    .build();
-
-            log.info("Publishing FeeChargedEvent for customer: {}, amount: {}",
-                    result.getCustomerId(), result.getChargedAmount());
-
-            // Serialize event to JSON string
-            String eventJson = objectMapper.writeValueAsString(event);
-
-            kafkaTemplate.send(KafkaConfig.TOPIC_FEE_CHARGED,
-                    result.getCustomerId().toString(),
-                    eventJson);
-
-            log.info("FeeChargedEvent published successfully to topic: {}", KafkaConfig.TOPIC_FEE_CHARGED);
+    // Metrics: latency until the broker acks (or rejects) the send
+    private Timer publishSuccessTimer;
+    private Timer publishFailedTimer;
+    private Counter publishFailures;
+
+    @PostConstruct
+    void registerMetrics() {
+        publishSuccessTimer = publishTimer("success");
+        publishFailedTimer = publishTimer("failed");
+        publishFailures = Counter.builder("fee.kafka.publish.failures")
+                .tag("topic", KafkaConfig.TOPIC_FEE_CHARGED)
+                .description("FeeChargedEvent sends that failed (the outbox row is retried)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Send a batch of events and wait (up to timeout) for the broker acks
+     * @return event ids acknowledged by the broker, the others failed or timed out
+     */
+    public Set<String> publishBatch(List<FeeChargedEvent> events, Duration timeout) {
+        List<CompletableFuture<SendResult<String, FeeChargedEvent>>> sends = new ArrayList<>(events.size());
+        for (FeeChargedEvent event : events) {
+            sends.add(send(event));
+        }
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        Set<String> acknowledged = new HashSet<>();
+        for (int i = 0; i < events.size(); i++) {
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                sends.get(i).get(remaining, TimeUnit.NANOSECONDS);
+                acknowledged.add(events.get(i).getEventId());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.debug("FeeChargedEvent {} not acknowledged: {}", events.get(i).getEventId(), e.getMessage());
+            }
+        }
+
+        if (acknowledged.size() < events.size()) {
+            log.warn("Published {}/{} FeeChargedEvents, the rest stay in the outbox for retry",
+                    acknowledged.size(), events.size());
+        }
+        return acknowledged;
+    }
 
+    private CompletableFuture<SendResult<String, FeeChargedEvent>> send(FeeChargedEvent event) {
+        long startedAt = System.nanoTime();
+        try {
+            return kafkaTemplate.send(KafkaConfig.TOPIC_FEE_CHARGED, event.getCustomerId().toString(), event)
+                    .whenComplete((sendResult, error) -> recordPublish(error == null, startedAt));
         } catch (Exception e) {
-            log.error("Error publishing FeeChargedEvent", e);
-            // Don't throw - fee already charged, just log error
+            log.error("Error publishing FeeChargedEvent for job: {}", event.getJobId(), e);
+            recordPublish(false, startedAt);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void recordPublish(boolean success, long startedAt) {
+        (success ? publishSuccessTimer : publishFailedTimer)
+                .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        if (!success) {
+            publishFailures.increment();
         }
     }
-}
\ No newline at end of file
+
+    private Timer publishTimer(String outcome) {
+        return Timer.builder("fee.kafka.publish")
+                .tag("topic", KafkaConfig.TOPIC_FEE_CHARGED)
+                .tag("outcome", outcome)
+                .description("Latency of publishing a FeeChargedEvent")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
@@ -1,44 +1,109 @@
 package com.hdbank.customer_fee_service.kafka;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.hdbank.customer_fee_service.config.KafkaConfig;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Consumer of the retry tiers (FeeChargedRetryTier), one listener container per tier
+ * A record is processed once it is due (record timestamp + tier delay). Until then it is nacked with the
+ * remaining delay: the container pauses that tier's consumer instead of sleeping, so other tiers and the
+ * main topic are never blocked. A failure goes to the next tier (or the DLQ) with the attempt count in the header.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class FeeChargedRetryConsumer {
 
-    private final ObjectMapper objectMapper;
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final FeeChargedRetryRouter retryRouter;
 
+    // The 1s tier also drains the legacy single retry topic
     @KafkaListener(
-            topics = KafkaConfig.TOPIC_FEE_CHARGED_RETRY,
+            id = "feeChargedRetry1sListener",
+            topics = {KafkaConfig.TOPIC_FEE_CHARGED_RETRY_1S, KafkaConfig.TOPIC_FEE_CHARGED_RETRY},
             groupId = "${spring.kafka.consumer.group-id}-retry",
-            containerFactory = "kafkaListenerContainerFactory"
+            containerFactory = "feeChargedRetryListenerContainerFactory"
     )
-    public void consumeRetryEvent(String eventJson) {
-        log.info("Received message from RETRY topic: {}", KafkaConfig.TOPIC_FEE_CHARGED_RETRY);
+    public void consumeRetry1s(ConsumerRecord<String, FeeChargedEvent> record, Acknowledgment ack) {
+        consumeRetryEvent(FeeChargedRetryTier.RETRY_1S, record, ack);
+    }
 
-        try {
-            FeeChargedEvent event = objectMapper.readValue(eventJson, FeeChargedEvent.class);
+    @KafkaListener(
+            id = "feeChargedRetry10sListener",
+            topics = KafkaConfig.TOPIC_FEE_CHARGED_RETRY_10S,
+            groupId = "${spring.kafka.consumer.group-id}-retry",
+            containerFactory = "feeChargedRetryListenerContainerFactory"
+    )
+    public void consumeRetry10s(ConsumerRecord<String, FeeChargedEvent> record, Acknowledgment ack) {
+        consumeRetryEvent(FeeChargedRetryTier.RETRY_10S, record, ack);
+    }
 
-            log.info("Retry processing FeeChargedEvent: eventId={}, customerId={}",
-                    event.getEventId(), event.getCustomerId());
+    @KafkaListener(
+            id = "feeChargedRetry60sListener",
+            topics = KafkaConfig.TOPIC_FEE_CHARGED_RETRY_60S,
+            groupId = "${spring.kafka.consumer.group-id}-retry",
+            containerFactory = "feeChargedRetryListenerContainerFactory"
+    )
+    public void consumeRetry60s(ConsumerRecord<String, FeeChargedEvent> record, Acknowledgment ack) {
+        consumeRetryEvent(FeeChargedRetryTier.RETRY_60S, record, ack);
+    }
 
-            // Re-process the event
-            processRetryEvent(event);
+    void consumeRetryEvent(FeeChargedRetryTier tier, ConsumerRecord<String, FeeChargedEvent> record, Acknowledgment ack) {
+        FeeChargedEvent event = record.value();
+        if (event == null) {
+            // Tombstone: an undecodable value never reaches a record listener, the error handler sends it to the DLQ
+            log.warn("Skipping FeeChargedEvent without a value at {}-{}@{}",
+                    record.topic(), record.partition(), record.offset());
+            ack.acknowledge();
+            return;
+        }
 
-            log.info("Retry event processed successfully: {}", event.getEventId());
+        Duration remaining = remainingDelay(tier, record);
+        if (!remaining.isZero()) {
+            // Not due yet: re-seek this record and pause the consumer for the remaining delay
+            ack.nack(remaining);
+            return;
+        }
 
+        int attempt = FeeChargedRetryRouter.attemptOf(record);
+        CompletableFuture<SendResult<String, FeeChargedEvent>> routed = null;
+        try {
+            log.info("Retry processing FeeChargedEvent: eventId={}, customerId={}, tier={}, attempt={}",
+                    event.getEventId(), event.getCustomerId(), tier, attempt);
+
+            if (retryRouter.isExhausted(attempt)) {
+                routed = retryRouter.sendToDLQ(event, attempt, null);
+            } else {
+                // Re-process the event
+                processRetryEvent(event);
+                log.info("Retry event processed successfully: {}", event.getEventId());
+            }
         } catch (Exception e) {
-            log.error("Retry processing failed, sending to DLQ: {}", eventJson, e);
-            sendToDLQ(eventJson);
+            log.error("Retry processing failed: {}", event, e);
+            routed = retryRouter.routeFailure(event, attempt, e);
+        }
+
+        if (routed != null) {
+            retryRouter.awaitRouted(List.of(routed));
+        }
+        ack.acknowledge();
+    }
+
+    private static Duration remainingDelay(FeeChargedRetryTier tier, ConsumerRecord<?, ?> record) {
+        if (record.timestamp() < 0) {
+            return Duration.ZERO;
         }
+        long remainingMillis = record.timestamp() + tier.getDelay().toMillis() - System.currentTimeMillis();
+        return remainingMillis > 0 ? Duration.ofMillis(remainingMillis) : Duration.ZERO;
     }
 
     private void processRetryEvent(FeeChargedEvent event) {
@@ -54,13 +119,4 @@ public class FeeChargedRetryConsumer {
             throw new IllegalArgumentException("Charged amount cannot be null");
         }
     }
-
-    private void sendToDLQ(String eventJson) {
-        try {
-            kafkaTemplate.send(KafkaConfig.TOPIC_FEE_CHARGED_DLQ, eventJson);
-            log.info("Retry event sent to DLQ");
-        } catch (Exception e) {
-            log.error("CRITICAL: Failed to send retry event to DLQ", e);
-        }
-    }
-}
\ No newline at end of file
+}
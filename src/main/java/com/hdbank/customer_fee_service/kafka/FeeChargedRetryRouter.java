@@ -0,0 +1,161 @@
+package com.hdbank.customer_fee_service.kafka;
+
+import com.hdbank.customer_fee_service.config.KafkaConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routes FeeChargedEvents that failed processing to the next retry tier (FeeChargedRetryTier) or the DLQ
+ * The number of failed attempts travels with the record in the fee-retry-attempt header,
+ * so routing needs no consumer-side state: it is thread-safe, survives restarts and rebalances
+ * and does not grow the heap.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FeeChargedRetryRouter {
+
+    public static final String ATTEMPT_HEADER = "fee-retry-attempt";  // Failed attempts so far
+    public static final String ERROR_HEADER = "fee-retry-error";      // Last failure, for the DLQ
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final KafkaTemplate<String, FeeChargedEvent> kafkaTemplate;
+
+    @Value("${fee.kafka.consumer.route-timeout:10s}")
+    private Duration routeTimeout;  // Max wait for the retry/DLQ sends before offsets are committed
+
+    /**
+     * Failed attempts of the record, 0 when it comes from the main topic
+     */
+    public static int attemptOf(ConsumerRecord<?, ?> record) {
+        Header header = record.headers().lastHeader(ATTEMPT_HEADER);
+        if (header == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(new String(header.value(), StandardCharsets.UTF_8));
+        } catch (NumberFormatException e) {
+            log.warn("Invalid {} header at {}-{}@{}", ATTEMPT_HEADER, record.topic(), record.partition(), record.offset());
+            return 0;
+        }
+    }
+
+    /**
+     * True when the record already went through every retry tier and must not be processed again
+     */
+    public boolean isExhausted(int attempt) {
+        return attempt > FeeChargedRetryTier.values().length;
+    }
+
+    /**
+     * Send a failed event to the tier of this attempt, or to the DLQ after the last tier
+     * @param attempt failed attempts before this one (header of the consumed record)
+     */
+    public CompletableFuture<SendResult<String, FeeChargedEvent>> routeFailure(
+            FeeChargedEvent event, int attempt, Exception error) {
+        int failedAttempts = attempt + 1;
+        FeeChargedRetryTier tier = FeeChargedRetryTier.forAttempt(failedAttempts);
+        if (tier == null) {
+            log.error("Max retries reached for event {}, sending to DLQ", event.getEventId());
+            return sendToDLQ(event, failedAttempts, error);
+        }
+
+        log.info("Sending event {} to {} (attempt {}/{})",
+                event.getEventId(), tier.getTopic(), failedAttempts, FeeChargedRetryTier.values().length);
+        try {
+            return kafkaTemplate.send(record(tier.getTopic(), event, failedAttempts, error));
+        } catch (Exception e) {
+            log.error("Error sending event to retry topic", e);
+            return sendToDLQ(event, failedAttempts, error);
+        }
+    }
+
+    public CompletableFuture<SendResult<String, FeeChargedEvent>> sendToDLQ(
+            FeeChargedEvent event, int attempt, Exception error) {
+        try {
+            return kafkaTemplate.send(record(KafkaConfig.TOPIC_FEE_CHARGED_DLQ, event, attempt, error))
+                    .whenComplete((result, sendError) -> {
+                        if (sendError == null) {
+                            log.info("Event {} sent to DLQ", event.getEventId());
+                        } else {
+                            log.error("CRITICAL: Failed to send event {} to DLQ", event.getEventId(), sendError);
+                        }
+                    });
+        } catch (Exception e) {
+            log.error("CRITICAL: Failed to send event to DLQ", e);
+            // TODO: Alert ops team
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Wait for routed sends, so the consumed offsets are only committed once the retry/DLQ copies are acked
+     * @throws KafkaException when one of them failed: the container redelivers the record
+     */
+    public void awaitRouted(List<CompletableFuture<SendResult<String, FeeChargedEvent>>> routed) {
+        if (routed.isEmpty()) {
+            return;
+        }
+        try {
+            CompletableFuture.allOf(routed.toArray(new CompletableFuture[0]))
+                    .get(routeTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KafkaException("Interrupted while routing failed FeeChargedEvents", e);
+        } catch (Exception e) {
+            throw new KafkaException("Failed to route " + routed.size() + " FeeChargedEvents to retry/DLQ", e);
+        }
+    }
+
+    /**
+     * Batch variant of awaitRouted that tells which send failed, so the listener can commit the records before it
+     * @param routed sends in record order
+     * @return position in routed of the first send not acked within routeTimeout, -1 when all were acked
+     */
+    public int awaitRoutedBatch(List<CompletableFuture<SendResult<String, FeeChargedEvent>>> routed) {
+        long deadline = System.nanoTime() + routeTimeout.toNanos();
+        for (int i = 0; i < routed.size(); i++) {
+            try {
+                routed.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return i;
+            } catch (Exception e) {
+                log.error("Failed to route FeeChargedEvent to retry/DLQ: {}", e.getMessage());
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static ProducerRecord<String, FeeChargedEvent> record(
+            String topic, FeeChargedEvent event, int attempt, Exception error) {
+        ProducerRecord<String, FeeChargedEvent> record = new ProducerRecord<>(topic, event.getEventId(), event);
+        Headers headers = record.headers();
+        headers.add(ATTEMPT_HEADER, Integer.toString(attempt).getBytes(StandardCharsets.UTF_8));
+        if (error != null) {
+            String message = error.getClass().getSimpleName() + ": " + error.getMessage();
+            if (message.length() > MAX_ERROR_LENGTH) {
+                message = message.substring(0, MAX_ERROR_LENGTH);
+            }
+            headers.add(ERROR_HEADER, message.getBytes(StandardCharsets.UTF_8));
+        }
+        return record;
+    }
+}
@@ -0,0 +1,31 @@
+package com.hdbank.customer_fee_service.kafka;
+
+import com.hdbank.customer_fee_service.config.KafkaConfig;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+
+/**
+ * Retry tiers of FeeChargedEvent, in order: the n-th failed attempt goes to the n-th tier,
+ * a failure after the last tier goes to the DLQ
+ */
+@Getter
+@RequiredArgsConstructor
+public enum FeeChargedRetryTier {
+
+    RETRY_1S(KafkaConfig.TOPIC_FEE_CHARGED_RETRY_1S, Duration.ofSeconds(1)),
+    RETRY_10S(KafkaConfig.TOPIC_FEE_CHARGED_RETRY_10S, Duration.ofSeconds(10)),
+    RETRY_60S(KafkaConfig.TOPIC_FEE_CHARGED_RETRY_60S, Duration.ofSeconds(60));
+
+    private final String topic;
+    private final Duration delay;
+
+    /**
+     * Tier of the given failed attempt (1 = first failure), null when the retries are exhausted
+     */
+    public static FeeChargedRetryTier forAttempt(int failedAttempts) {
+        FeeChargedRetryTier[] tiers = values();
+        return failedAttempts >= 1 && failedAttempts <= tiers.length ? tiers[failedAttempts - 1] : null;
+    }
+}
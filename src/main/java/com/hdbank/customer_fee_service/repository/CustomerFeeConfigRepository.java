@@ -1,14 +1,17 @@
 package com.hdbank.customer_fee_service.repository;
 
 import com.hdbank.customer_fee_service.entity.CustomerFeeConfig;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface CustomerFeeConfigRepository extends JpaRepository<CustomerFeeConfig, Long> {
@@ -36,4 +39,56 @@ public interface CustomerFeeConfigRepository extends JpaRepository<CustomerFeeCo
     );
 
     List<CustomerFeeConfig> findByCustomerIdAndDeletedAtIsNull(Long customerId);
+
+    /**
+     * Find the customer's configs starting last on or before the given date (null date = no upper bound),
+     * latest first, leaving out excludeConfigId (the config being updated) when not null.
+     * Configs never overlap (ex_customer_fee_config_no_overlap), so the first one is the only candidate
+     * that can overlap a range ending on that date.
+     */
+    @Query("SELECT c FROM CustomerFeeConfig c " +
+            "WHERE c.customerId = :customerId " +
+            "AND c.deletedAt IS NULL " +
+            "AND (:date IS NULL OR c.effectiveFrom <= :date) " +
+            "AND (:excludeConfigId IS NULL OR c.id <> :excludeConfigId) " +
+            "ORDER BY c.effectiveFrom DESC")
+    List<CustomerFeeConfig> findLatestStartingOnOrBefore(
+            @Param("customerId") Long customerId,
+            @Param("date") LocalDate date,
+            @Param("excludeConfigId") Long excludeConfigId,
+            Limit limit
+    );
+
+    /**
+     * Batched variant of findByCustomerIdAndDeletedAtIsNull (bulk import overlap checks)
+     */
+    List<CustomerFeeConfig> findByCustomerIdInAndDeletedAtIsNull(Collection<Long> customerIds);
+
+    /**
+     * Batched variant of findActiveConfigByCustomerIdAndDate.
+     * @return the active configs of the given customers on the given date
+     */
+    @Query("SELECT c FROM CustomerFeeConfig c " +
+            "WHERE c.customerId IN :customerIds " +
+            "AND c.deletedAt IS NULL " +
+            "AND c.effectiveFrom <= :date " +
+            "AND (c.effectiveTo IS NULL OR c.effectiveTo >= :date)")
+    List<CustomerFeeConfig> findActiveConfigsByCustomerIdsAndDate(
+            @Param("customerIds") Collection<Long> customerIds,
+            @Param("date") LocalDate date
+    );
+
+    /**
+     * Batched variant of findActiveConfigByCustomerIdAndDate.
+     * @return ids of the given customers that have an active config on the given date
+     */
+    @Query("SELECT DISTINCT c.customerId FROM CustomerFeeConfig c " +
+            "WHERE c.customerId IN :customerIds " +
+            "AND c.deletedAt IS NULL " +
+            "AND c.effectiveFrom <= :date " +
+            "AND (c.effectiveTo IS NULL OR c.effectiveTo >= :date)")
+    Set<Long> findCustomerIdsWithActiveConfig(
+            @Param("customerIds") Collection<Long> customerIds,
+            @Param("date") LocalDate date
+    );
 }
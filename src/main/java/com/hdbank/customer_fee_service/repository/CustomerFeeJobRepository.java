@@ -4,10 +4,18 @@ import com.hdbank.customer_fee_service.entity.CustomerFeeJob;
 import com.hdbank.customer_fee_service.entity.FeeJobStatus;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface CustomerFeeJobRepository extends JpaRepository<CustomerFeeJob, Long> {
@@ -18,4 +26,93 @@ public interface CustomerFeeJobRepository extends JpaRepository<CustomerFeeJob,
     List<CustomerFeeJob> findByCustomerId(Long customerId);
     boolean existsByIdempotencyKey(String idempotencyKey);
     List<CustomerFeeJob> findByBillingMonth(String billingMonth);
+
+    /**
+     * Number of (not deleted) jobs per status, rows of [FeeJobStatus, Long]
+     */
+    @Query("SELECT j.status, COUNT(j) FROM CustomerFeeJob j WHERE j.deletedAt IS NULL GROUP BY j.status")
+    List<Object[]> countGroupByStatus();
+
+    /**
+     * Atomically claim a batch of NEW jobs of one execution partition.
+     * Rows locked by another executor are skipped (FOR UPDATE SKIP LOCKED), claimed rows are flipped
+     * to IN_PROGRESS with the claim owner and time in the same statement, so concurrent workers and nodes
+     * always get disjoint batches without a global lock.
+     * attempt_count is incremented in the same statement and becomes the attempt_no of this attempt.
+     * Partitions are customer_id modulo partitionCount, so jobs of one customer stay in one partition.
+     * @return ids of the claimed jobs
+     */
+    @Transactional
+    @Query(value = "UPDATE customer_fee_job " +
+            "SET status = 'IN_PROGRESS', claimed_by = :owner, claimed_at = :claimedAt, " +
+            "attempt_count = attempt_count + 1, updated_at = :claimedAt, version = version + 1 " +
+            "WHERE id IN (SELECT id FROM customer_fee_job " +
+            "WHERE status = 'NEW' " +
+            "AND deleted_at IS NULL " +
+            "AND MOD(customer_id, :partitionCount) = :partition " +
+            "ORDER BY id " +
+            "LIMIT :limit " +
+            "FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id",
+            nativeQuery = true)
+    List<Long> claimNewJobs(
+            @Param("owner") String owner,
+            @Param("claimedAt") Instant claimedAt,
+            @Param("partitionCount") int partitionCount,
+            @Param("partition") int partition,
+            @Param("limit") int limit
+    );
+
+    /**
+     * Put jobs claimed before the given time back to NEW (e.g. the executor node died mid-batch).
+     * @return number of released jobs
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE CustomerFeeJob j " +
+            "SET j.status = :releasedStatus, j.claimedBy = NULL, j.claimedAt = NULL, j.version = j.version + 1 " +
+            "WHERE j.status = :claimedStatus " +
+            "AND j.claimedAt < :claimedBefore")
+    int releaseStaleClaims(
+            @Param("claimedStatus") FeeJobStatus claimedStatus,
+            @Param("releasedStatus") FeeJobStatus releasedStatus,
+            @Param("claimedBefore") Instant claimedBefore
+    );
+
+    @Query("SELECT j.idempotencyKey FROM CustomerFeeJob j WHERE j.idempotencyKey IN :keys")
+    Set<String> findExistingIdempotencyKeys(@Param("keys") Collection<String> keys);
+
+    /**
+     * Create NEW jobs for the billing month in one set-based statement over a customer id range.
+     * Only ACTIVE, non-deleted customers that have a fee config effective on the given date get a job.
+     * Existing idempotency keys are skipped by ON CONFLICT, so the statement is safe to re-run.
+     * @param billingMonth billing month in yyyy-MM format
+     * @param date the date used to resolve the effective fee config
+     * @param afterId exclusive lower bound of customer id
+     * @param upToId inclusive upper bound of customer id
+     * @return number of jobs actually inserted
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO customer_fee_job " +
+            "(customer_id, billing_month, status, idempotency_key, created_at, updated_at, created_by, updated_by, version) " +
+            "SELECT c.id, :billingMonth, 'NEW', c.id || '_' || :billingMonth, now(), now(), 0, 0, 0 " +
+            "FROM customer c " +
+            "WHERE c.status = 'ACTIVE' " +
+            "AND c.deleted_at IS NULL " +
+            "AND c.id > :afterId " +
+            "AND c.id <= :upToId " +
+            "AND EXISTS (SELECT 1 FROM customer_fee_config cfg " +
+            "WHERE cfg.customer_id = c.id " +
+            "AND cfg.deleted_at IS NULL " +
+            "AND cfg.effective_from <= :date " +
+            "AND (cfg.effective_to IS NULL OR cfg.effective_to >= :date)) " +
+            "ON CONFLICT (idempotency_key) DO NOTHING",
+            nativeQuery = true)
+    int insertMonthlyJobsForActiveCustomers(
+            @Param("billingMonth") String billingMonth,
+            @Param("date") LocalDate date,
+            @Param("afterId") Long afterId,
+            @Param("upToId") Long upToId
+    );
 }
@@ -4,6 +4,8 @@ import com.hdbank.customer_fee_service.entity.Customer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -17,4 +19,33 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
     List<Customer> findByStatusAndDeletedAtIsNull(String status);
     boolean existsByEmail(String email);
     Page<Customer> findByDeletedAtIsNull(Pageable pageable);
+
+    /**
+     * Keyset pagination over non-deleted customers with the given status, ordered by id.
+     * Use the last id of the previous chunk as afterId (0 for the first chunk).
+     */
+    @Query("SELECT c FROM Customer c " +
+            "WHERE c.status = :status " +
+            "AND c.deletedAt IS NULL " +
+            "AND c.id > :afterId " +
+            "ORDER BY c.id ASC")
+    List<Customer> findNextChunkByStatus(
+            @Param("status") String status,
+            @Param("afterId") Long afterId,
+            Pageable pageable
+    );
+
+    /**
+     * Same keyset scan as findNextChunkByStatus but only returns ids.
+     */
+    @Query("SELECT c.id FROM Customer c " +
+            "WHERE c.status = :status " +
+            "AND c.deletedAt IS NULL " +
+            "AND c.id > :afterId " +
+            "ORDER BY c.id ASC")
+    List<Long> findNextIdChunkByStatus(
+            @Param("status") String status,
+            @Param("afterId") Long afterId,
+            Pageable pageable
+    );
 }
@@ -0,0 +1,48 @@
+package com.hdbank.customer_fee_service.repository;
+
+import com.hdbank.customer_fee_service.entity.FeeChargedDlq;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface FeeChargedDlqRepository extends JpaRepository<FeeChargedDlq, Long> {
+
+    /**
+     * Next DLQ rows after afterId (keyset) matching the optional filters, ordered by id
+     */
+    @Query("SELECT d FROM FeeChargedDlq d " +
+            "WHERE d.id > :afterId " +
+            "AND (:billingMonth IS NULL OR d.billingMonth = :billingMonth) " +
+            "AND (:customerId IS NULL OR d.customerId = :customerId) " +
+            "AND (:includeReplayed = true OR d.replayedAt IS NULL) " +
+            "ORDER BY d.id")
+    List<FeeChargedDlq> findNextByFilter(@Param("afterId") Long afterId,
+                                         @Param("billingMonth") String billingMonth,
+                                         @Param("customerId") Long customerId,
+                                         @Param("includeReplayed") boolean includeReplayed,
+                                         Pageable pageable);
+
+    @Query("SELECT COUNT(d) FROM FeeChargedDlq d " +
+            "WHERE (:billingMonth IS NULL OR d.billingMonth = :billingMonth) " +
+            "AND (:customerId IS NULL OR d.customerId = :customerId) " +
+            "AND (:includeReplayed = true OR d.replayedAt IS NULL)")
+    long countByFilter(@Param("billingMonth") String billingMonth,
+                       @Param("customerId") Long customerId,
+                       @Param("includeReplayed") boolean includeReplayed);
+
+    List<FeeChargedDlq> findByIdInOrderById(Collection<Long> ids);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE FeeChargedDlq d SET d.replayedAt = :replayedAt, d.replayCount = d.replayCount + 1 WHERE d.id IN :ids")
+    int markReplayed(@Param("ids") Collection<Long> ids, @Param("replayedAt") Instant replayedAt);
+}
@@ -0,0 +1,62 @@
+package com.hdbank.customer_fee_service.repository;
+
+import com.hdbank.customer_fee_service.entity.FeeChargedOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface FeeChargedOutboxRepository extends JpaRepository<FeeChargedOutbox, Long> {
+
+    /**
+     * Lock the next unsent rows after afterId (keyset) that are due (not claimed or backing off) and not parked
+     * (send_attempts below maxAttempts), rows locked by another relay are skipped
+     * Must run inside a transaction, the locks are held until it ends
+     */
+    @Query(value = "SELECT * FROM fee_charged_outbox " +
+            "WHERE sent_at IS NULL AND id > :afterId " +
+            "AND send_attempts < :maxAttempts " +
+            "AND (next_attempt_at IS NULL OR next_attempt_at <= :now) " +
+            "ORDER BY id " +
+            "LIMIT :limit " +
+            "FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<FeeChargedOutbox> lockNextDue(@Param("afterId") Long afterId, @Param("now") Instant now,
+                                       @Param("maxAttempts") int maxAttempts, @Param("limit") int limit);
+
+    /**
+     * Hide rows from other relays until claimedUntil (while they are being published)
+     */
+    @Modifying
+    @Query("UPDATE FeeChargedOutbox o SET o.nextAttemptAt = :claimedUntil WHERE o.id IN :ids")
+    int claim(@Param("ids") Collection<Long> ids, @Param("claimedUntil") Instant claimedUntil);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE FeeChargedOutbox o SET o.sentAt = :sentAt, o.sendAttempts = o.sendAttempts + 1 WHERE o.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("sentAt") Instant sentAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE FeeChargedOutbox o SET o.sendAttempts = o.sendAttempts + 1, o.nextAttemptAt = :nextAttemptAt " +
+            "WHERE o.id IN :ids")
+    int markSendFailed(@Param("ids") Collection<Long> ids, @Param("nextAttemptAt") Instant nextAttemptAt);
+
+    /**
+     * Delete up to limit rows sent before the given time
+     * @return number of rows deleted
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM fee_charged_outbox WHERE id IN (" +
+            "SELECT id FROM fee_charged_outbox WHERE sent_at < :sentBefore ORDER BY id LIMIT :limit)",
+            nativeQuery = true)
+    int deleteSentBefore(@Param("sentBefore") Instant sentBefore, @Param("limit") int limit);
+}
@@ -1,12 +1,23 @@
 package com.hdbank.customer_fee_service.scheduler;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Distributed lock using PosgreSQL advisory locks
+ * Metrics: fee.lock.acquire{lock, result} (time to try the lock), fee.lock.contention{lock}, fee.lock.held{lock}
  */
 @Service
 @RequiredArgsConstructor
@@ -14,6 +25,7 @@ import org.springframework.stereotype.Service;
 public class DistributedLockService {
 
     private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
 
     /**
      * Try to acquire lock
@@ -22,6 +34,7 @@ public class DistributedLockService {
      */
     public boolean tryLock(String lockKey){
         long lockId = Math.abs(lockKey.hashCode());
+        long startedAt = System.nanoTime();
 
         try {
             Boolean result = jdbcTemplate.queryForObject(
@@ -31,13 +44,16 @@ public class DistributedLockService {
             );
             if(Boolean.TRUE.equals(result)){
                 log.info("Lock acquired for key: {} (id: {})",lockKey, lockId);
+                recordAcquire(lockKey, true, startedAt);
                 return true;
             } else {
                 log.info("Lock already held for key: {} (id: {})",lockKey,lockId);
+                recordAcquire(lockKey, false, startedAt);
                 return false;
             }
         } catch (Exception e) {
             log.error("Error acquiring lock for key: {}",lockKey,e);
+            recordAcquireError(lockKey, startedAt);
             return false;
         }
     }
@@ -63,18 +79,90 @@ public class DistributedLockService {
     /**
      * Executed with lock
      * Automatically acquires and releases lock
+     * Advisory locks belong to the DB session, so lock and unlock run on the same pooled connection
+     * which stays checked out while the task runs
      */
     public void executeWithLock(String lockKey, Runnable task){
-        if(!tryLock(lockKey)){
-            log.info("Could not acquires lock, skipping execution for: {}", lockKey);
-            return;
+        long lockId = Math.abs(lockKey.hashCode());
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            if(!tryLock(connection, lockKey, lockId)){
+                log.info("Could not acquires lock, skipping execution for: {}", lockKey);
+                return null;
+            }
+            long lockedAt = System.nanoTime();
+            try {
+                log.info("Executing task with lock: {}", lockKey);
+                task.run();
+            } finally {
+                unlock(connection, lockKey, lockId);
+                Timer.builder("fee.lock.held")
+                        .tag("lock", lockKey)
+                        .description("Time a distributed lock was held")
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - lockedAt, TimeUnit.NANOSECONDS);
+            }
+            return null;
+        });
+    }
+
+    private boolean tryLock(Connection connection, String lockKey, long lockId){
+        long startedAt = System.nanoTime();
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            statement.setLong(1, lockId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                boolean acquired = resultSet.next() && resultSet.getBoolean(1);
+                if(acquired){
+                    log.info("Lock acquired for key: {} (id: {})",lockKey, lockId);
+                } else {
+                    log.info("Lock already held for key: {} (id: {})",lockKey,lockId);
+                }
+                recordAcquire(lockKey, acquired, startedAt);
+                return acquired;
+            }
+        } catch (SQLException e) {
+            log.error("Error acquiring lock for key: {}",lockKey,e);
+            recordAcquireError(lockKey, startedAt);
+            return false;
         }
-        try {
-            log.info("Executing task with lock: {}", lockKey);
-            task.run();
-        } finally {
-            unlock(lockKey);
+    }
+
+    private void unlock(Connection connection, String lockKey, long lockId){
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            statement.setLong(1, lockId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if(resultSet.next() && resultSet.getBoolean(1)){
+                    log.info("Lock released for key: {} (id: {})",lockKey,lockId);
+                } else{
+                    log.info("Lock was not held for key: {} (id: {})", lockKey, lockId);
+                }
+            }
+        } catch (SQLException e){
+            log.error("Error releasing lock for key: {}", lockKey,e);
+        }
+    }
+
+    private void recordAcquire(String lockKey, boolean acquired, long startedAt){
+        recordAcquireTime(lockKey, acquired ? "acquired" : "contended", startedAt);
+        if(!acquired){
+            Counter.builder("fee.lock.contention")
+                    .tag("lock", lockKey)
+                    .description("Lock attempts that found the lock already held")
+                    .register(meterRegistry)
+                    .increment();
         }
     }
 
+    private void recordAcquireError(String lockKey, long startedAt){
+        recordAcquireTime(lockKey, "error", startedAt);
+    }
+
+    private void recordAcquireTime(String lockKey, String result, long startedAt){
+        Timer.builder("fee.lock.acquire")
+                .tag("lock", lockKey)
+                .tag("result", result)
+                .description("Time to try a distributed lock")
+                .register(meterRegistry)
+                .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
 }
@@ -0,0 +1,230 @@
+package com.hdbank.customer_fee_service.scheduler;
+
+import com.hdbank.customer_fee_service.entity.FeeChargedOutbox;
+import com.hdbank.customer_fee_service.kafka.FeeChargedEvent;
+import com.hdbank.customer_fee_service.kafka.FeeChargedProducer;
+import com.hdbank.customer_fee_service.repository.FeeChargedOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Relay of the fee_charged_outbox table to payment.fee.charged.v1
+ * Every run claims unsent rows in keyset batches (id > lastId): a short transaction locks them with
+ * FOR UPDATE SKIP LOCKED and sets next_attempt_at = now + claim-ttl, so relays on several nodes never publish
+ * the same row at the same time. The batch is published outside any transaction (no row locks or connection
+ * held while waiting for acks), then marked. A relay that dies mid-batch leaves the claim to expire.
+ * A row is marked sent only after the broker acked it (at-least-once: a crash after the ack re-sends it,
+ * consumers deduplicate on event_id). Unacked rows stay unsent and are retried with exponential backoff
+ * (retry-backoff, doubling up to max-retry-backoff). After max-attempts they are parked: never relayed again
+ * until an operator resets send_attempts, counted in fee.outbox.relayed{result=parked}.
+ * Sent rows are pruned after the retention period.
+ * Runs on its own thread of the scheduling pool (spring.task.scheduling.pool.size), never behind the charge crons.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "fee.outbox.relay.enabled", havingValue = "true", matchIfMissing = true)
+public class FeeChargedOutboxRelay {
+
+    private final FeeChargedOutboxRepository outboxRepository;
+    private final FeeChargedProducer kafkaProducer;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${fee.outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${fee.outbox.relay.max-batches-per-run:20}")
+    private int maxBatchesPerRun;
+
+    @Value("${fee.outbox.relay.send-timeout:10s}")
+    private Duration sendTimeout;  // Max wait for the acks of one batch
+
+    @Value("${fee.outbox.relay.claim-ttl:1m}")
+    private Duration claimTtl;  // How long claimed rows are hidden from other relays, must exceed send-timeout
+
+    @Value("${fee.outbox.relay.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${fee.outbox.relay.retry-backoff:5s}")
+    private Duration retryBackoff;  // Wait after the first failed send, doubled on every further failure
+
+    @Value("${fee.outbox.relay.max-retry-backoff:10m}")
+    private Duration maxRetryBackoff;
+
+    @Value("${fee.outbox.prune.retention:7d}")
+    private Duration retention;
+
+    @Value("${fee.outbox.prune.chunk-size:5000}")
+    private int pruneChunkSize;
+
+    // Metrics
+    private Counter sentCounter;
+    private Counter failedCounter;
+    private Counter parkedCounter;
+    private Counter prunedCounter;
+
+    @PostConstruct
+    void registerMetrics() {
+        sentCounter = Counter.builder("fee.outbox.relayed")
+                .tag("result", "sent")
+                .description("Outbox rows handled by the relay")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("fee.outbox.relayed")
+                .tag("result", "failed")
+                .description("Outbox rows handled by the relay")
+                .register(meterRegistry);
+        parkedCounter = Counter.builder("fee.outbox.relayed")
+                .tag("result", "parked")
+                .description("Outbox rows handled by the relay")
+                .register(meterRegistry);
+        prunedCounter = Counter.builder("fee.outbox.pruned")
+                .description("Sent outbox rows deleted after the retention period")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${fee.outbox.relay.interval-ms:1000}")
+    public void relayOutbox() {
+        long lastId = 0L;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            final long afterId = lastId;
+            RelayResult result;
+            try {
+                result = relayBatch(afterId);
+            } catch (Exception e) {
+                log.error("Error relaying fee_charged_outbox after id {}", afterId, e);
+                return;
+            }
+
+            if (result == null || result.locked() == 0) {
+                return;
+            }
+            if (result.sent() == 0) {
+                // Nothing acknowledged, broker is likely down: wait for the next run
+                return;
+            }
+            if (result.locked() < batchSize) {
+                return;
+            }
+            lastId = result.lastId();
+        }
+    }
+
+    /**
+     * Delete rows sent before now - retention, chunk by chunk to keep each delete short
+     */
+    @Scheduled(cron = "${fee.outbox.prune.cron:0 30 * * * ?}")  // Every hour at minute 30
+    public void pruneOutbox() {
+        Instant sentBefore = Instant.now().minus(retention);
+        long pruned = 0;
+        try {
+            int deleted;
+            do {
+                deleted = outboxRepository.deleteSentBefore(sentBefore, pruneChunkSize);
+                pruned += deleted;
+            } while (deleted == pruneChunkSize);
+        } catch (Exception e) {
+            log.error("Error pruning fee_charged_outbox", e);
+        }
+        prunedCounter.increment(pruned);
+        log.info("Pruned {} sent outbox rows (sent before {})", pruned, sentBefore);
+    }
+
+    private RelayResult relayBatch(long afterId) {
+        List<FeeChargedOutbox> rows = transactionTemplate.execute(status -> claimBatch(afterId));
+        if (rows == null || rows.isEmpty()) {
+            return new RelayResult(0, afterId, 0);
+        }
+
+        List<FeeChargedEvent> events = rows.stream().map(this::toEvent).toList();
+        Set<String> acknowledged = kafkaProducer.publishBatch(events, sendTimeout);
+
+        List<Long> sentIds = new ArrayList<>(acknowledged.size());
+        // Failed rows grouped by their attempt count after this send, which sets their backoff
+        Map<Integer, List<Long>> failedIdsByAttempt = new TreeMap<>();
+        List<String> parkedEventIds = new ArrayList<>();
+        for (FeeChargedOutbox row : rows) {
+            if (acknowledged.contains(row.getEventId())) {
+                sentIds.add(row.getId());
+                continue;
+            }
+            int attempt = row.getSendAttempts() + 1;
+            failedIdsByAttempt.computeIfAbsent(attempt, a -> new ArrayList<>()).add(row.getId());
+            if (attempt >= maxAttempts) {
+                parkedEventIds.add(row.getEventId());
+            }
+        }
+        Instant now = Instant.now();
+        if (!sentIds.isEmpty()) {
+            outboxRepository.markSent(sentIds, now);
+        }
+        int failed = 0;
+        for (Map.Entry<Integer, List<Long>> entry : failedIdsByAttempt.entrySet()) {
+            outboxRepository.markSendFailed(entry.getValue(), now.plus(backoff(entry.getKey())));
+            failed += entry.getValue().size();
+        }
+        if (!parkedEventIds.isEmpty()) {
+            log.error("Parked {} outbox rows after {} failed sends, eventIds={}",
+                    parkedEventIds.size(), maxAttempts, parkedEventIds);
+        }
+
+        sentCounter.increment(sentIds.size());
+        failedCounter.increment(failed - parkedEventIds.size());
+        parkedCounter.increment(parkedEventIds.size());
+        log.debug("Relayed outbox batch after id {}: sent {}, failed {}", afterId, sentIds.size(), failed);
+        return new RelayResult(rows.size(), rows.get(rows.size() - 1).getId(), sentIds.size());
+    }
+
+    /**
+     * retryBackoff * 2^(attempt - 1), capped at maxRetryBackoff
+     */
+    private Duration backoff(int attempt) {
+        Duration backoff = retryBackoff.multipliedBy(1L << Math.min(attempt - 1, 20));
+        return backoff.compareTo(maxRetryBackoff) > 0 ? maxRetryBackoff : backoff;
+    }
+
+    /**
+     * Lock the next due rows and claim them until now + claimTtl, the locks are released on commit
+     */
+    private List<FeeChargedOutbox> claimBatch(long afterId) {
+        Instant now = Instant.now();
+        List<FeeChargedOutbox> rows = outboxRepository.lockNextDue(afterId, now, maxAttempts, batchSize);
+        if (!rows.isEmpty()) {
+            outboxRepository.claim(rows.stream().map(FeeChargedOutbox::getId).toList(), now.plus(claimTtl));
+        }
+        return rows;
+    }
+
+    private FeeChargedEvent toEvent(FeeChargedOutbox row) {
+        return FeeChargedEvent.builder()
+                .eventId(row.getEventId())
+                .eventTime(row.getCreatedAt().toString())
+                .jobId(row.getJobId())
+                .customerId(row.getCustomerId())
+                .feeConfigId(row.getFeeConfigId())
+                .chargedAmount(row.getChargedAmount())
+                .currency(row.getCurrency())
+                .billingMonth(row.getBillingMonth())
+                .eventType(row.getEventType())
+                .build();
+    }
+
+    private record RelayResult(int locked, long lastId, int sent) {
+    }
+}
@@ -1,22 +1,41 @@
 package com.hdbank.customer_fee_service.scheduler;
 
 import com.hdbank.customer_fee_service.dto.response.FeeChargeResult;
-import com.hdbank.customer_fee_service.entity.CustomerFeeJob;
 import com.hdbank.customer_fee_service.entity.FeeJobStatus;
-import com.hdbank.customer_fee_service.kafka.FeeChargedProducer;
 import com.hdbank.customer_fee_service.repository.CustomerFeeJobRepository;
 import com.hdbank.customer_fee_service.service.FeeChargeService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Scheduler to execute pending fee jobs
  * Runs every 5 minutes to process jobs with status = NEW
+ * NEW jobs are split into partitions by customer_id % partitions and every partition runs on the
+ * bounded feeJobExecutor pool. Batches are claimed with FOR UPDATE SKIP LOCKED (NEW -> IN_PROGRESS),
+ * so workers on every node pull disjoint batches without any global lock.
+ * Claims older than claim-timeout (e.g. the node died mid-batch) are put back to NEW at the start of each run.
+ * Drain mode: while a partition keeps returning full batches the next batch is fetched immediately,
+ * the partition only waits for the next cron tick once its queue is empty (or max-drain-duration is reached).
  */
 @Component
 @RequiredArgsConstructor
@@ -25,20 +44,135 @@ public class FeeJobExecuteScheduler {
 
     private final CustomerFeeJobRepository feeJobRepository;
     private final FeeChargeService feeChargeService;
-    private final FeeChargedProducer kafkaProducer;
-    private final DistributedLockService lockService;
-
-    private static final String LOCK_KEY = "FEE_JOB_EXECUTE_SCHEDULER";
-    private static final int BATCH_SIZE = 100;  // Process 100 jobs per run
+    private final ThreadPoolTaskExecutor feeJobExecutor;
+    private final MeterRegistry meterRegistry;
+
+    // Claim owner of this node: {hostname}-{random}
+    private final String claimOwner = resolveClaimOwner();
+
+    @Value("${fee.job.execute.partitions:4}")
+    private int partitionCount;
+
+    @Value("${fee.job.execute.batch-size:100}")
+    private int batchSize;  // Jobs per partition per batch
+
+    @Value("${fee.job.execute.drain-enabled:true}")
+    private boolean drainEnabled;
+
+    @Value("${fee.job.execute.max-drain-duration:4m}")
+    private Duration maxDrainDuration;
+
+    @Value("${fee.job.execute.claim-timeout:30m}")
+    private Duration claimTimeout;
+
+    // Metrics
+    private final Map<FeeJobStatus, AtomicLong> jobCounts = new EnumMap<>(FeeJobStatus.class);
+    private volatile double lastDrainRate;  // jobs per second of the last run
+    private Counter successCounter;
+    private Counter failedCounter;
+
+    @PostConstruct
+    void registerMetrics() {
+        for (FeeJobStatus status : FeeJobStatus.values()) {
+            AtomicLong count = new AtomicLong();
+            jobCounts.put(status, count);
+            Gauge.builder("fee.job.backlog", count, AtomicLong::get)
+                    .tag("status", status.name())
+                    .description("Number of fee jobs per status (NEW = waiting to be charged)")
+                    .register(meterRegistry);
+        }
+        Gauge.builder("fee.job.drain.rate", this, scheduler -> scheduler.lastDrainRate)
+                .description("Jobs processed per second during the last execute run")
+                .baseUnit("jobs/s")
+                .register(meterRegistry);
+        successCounter = Counter.builder("fee.job.drained")
+                .tag("outcome", "success")
+                .description("Fee jobs processed by the execute scheduler")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("fee.job.drained")
+                .tag("outcome", "failed")
+                .description("Fee jobs processed by the execute scheduler")
+                .register(meterRegistry);
+    }
 
     /**
      * Runs every 5 minutes
      */
     @Scheduled(cron = "0 */5 * * * ?")  // Every 5 minutes
     public void executeNewFeeJobs() {
-        log.info("Starting FeeJobExecuteScheduler...");
+        log.info("Starting FeeJobExecuteScheduler with {} partitions (owner: {})...", partitionCount, claimOwner);
+
+        releaseStaleClaims();
+
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + maxDrainDuration.toNanos();
+        AtomicInteger processed = new AtomicInteger();
+
+        List<CompletableFuture<Void>> partitionRuns = new ArrayList<>();
+        for (int partition = 0; partition < partitionCount; partition++) {
+            final int currentPartition = partition;
+            partitionRuns.add(CompletableFuture.runAsync(
+                    () -> processed.addAndGet(drainPartition(currentPartition, deadline)),
+                    feeJobExecutor));
+        }
+
+        try {
+            // Wait for all partitions so runs never overlap on the same node
+            CompletableFuture.allOf(partitionRuns.toArray(new CompletableFuture[0])).join();
+        } catch (Exception e) {
+            log.error("Error executing fee job partitions", e);
+        }
+
+        updateDrainMetrics(processed.get(), System.nanoTime() - startedAt);
+    }
+
+    /**
+     * Keep fetching batches of this partition while they come back full
+     * @return number of jobs processed
+     */
+    private int drainPartition(int partition, long deadline) {
+        int processed = 0;
+        while (true) {
+            int batchProcessed = executePartition(partition);
+            processed += batchProcessed;
+
+            if (!drainEnabled || batchProcessed < batchSize) {
+                break;
+            }
+            if (System.nanoTime() >= deadline) {
+                log.info("Max drain duration reached for partition {}, continuing on next run", partition);
+                break;
+            }
+        }
+        return processed;
+    }
 
-        lockService.executeWithLock(LOCK_KEY, this::executeJobs);
+    private void releaseStaleClaims() {
+        try {
+            int released = feeJobRepository.releaseStaleClaims(
+                    FeeJobStatus.IN_PROGRESS, FeeJobStatus.NEW, Instant.now().minus(claimTimeout));
+            if (released > 0) {
+                log.warn("Released {} stale IN_PROGRESS jobs back to NEW", released);
+            }
+        } catch (Exception e) {
+            log.error("Error releasing stale job claims", e);
+        }
+    }
+
+    private void updateDrainMetrics(int processed, long elapsedNanos) {
+        double elapsedSeconds = elapsedNanos / 1_000_000_000.0;
+        lastDrainRate = elapsedSeconds > 0 ? processed / elapsedSeconds : 0;
+        try {
+            Map<FeeJobStatus, Long> counts = new EnumMap<>(FeeJobStatus.class);
+            for (Object[] row : feeJobRepository.countGroupByStatus()) {
+                counts.put((FeeJobStatus) row[0], (Long) row[1]);
+            }
+            jobCounts.forEach((status, count) -> count.set(counts.getOrDefault(status, 0L)));
+        } catch (Exception e) {
+            log.error("Error counting fee jobs by status", e);
+        }
+        log.info("Execute run finished. Processed: {}, Rate: {} jobs/s, Backlog: {}",
+                processed, String.format("%.2f", lastDrainRate), jobCounts.get(FeeJobStatus.NEW).get());
     }
 
     /**
@@ -47,47 +181,57 @@ public class FeeJobExecuteScheduler {
 //    @Scheduled(cron = "0 */1 * * * ?")  // Every 2 minutes
 //    public void executeNewFeeJobsTest() {
 //        log.info("Starting FeeJobExecuteScheduler (TEST MODE)...");
-//        lockService.executeWithLock(LOCK_KEY + "_TEST", this::executeJobs);
+//        executeNewFeeJobs();
 //    }
 
-    private void executeJobs() {
-        // Get NEW jobs (limit batch size to avoid overload)
-        List<CustomerFeeJob> newJobs = feeJobRepository.findByStatus(
-                FeeJobStatus.NEW, PageRequest.of(0,BATCH_SIZE) // limit 100 jobs in a time
+    /**
+     * Claim and process one batch of NEW jobs of the partition
+     * @return number of jobs processed (success + failed)
+     */
+    private int executePartition(int partition) {
+        // Claim NEW jobs of this partition (limit batch size to avoid overload)
+        List<Long> claimedJobIds = feeJobRepository.claimNewJobs(
+                claimOwner, Instant.now(), partitionCount, partition, batchSize
         );
 
-        if (newJobs.isEmpty()) {
-            log.info("No NEW jobs to process");
-            return;
+        if (claimedJobIds.isEmpty()) {
+            log.info("No NEW jobs to process in partition {}", partition);
+            return 0;
         }
 
-        log.info("Found {} NEW jobs to process", newJobs.size());
+        log.debug("Claimed {} NEW jobs to process in partition {}", claimedJobIds.size(), partition);
+
+        // Charge the whole batch in one transaction
+        // FeeChargedEvents are written to the outbox in the same transaction and published by FeeChargedOutboxRelay
+        List<FeeChargeResult> results = feeChargeService.chargeFees(claimedJobIds);
 
         int success = 0;
         int failed = 0;
 
-        for (CustomerFeeJob job : newJobs) {
-            try {
-                log.info("Processing job: {} for customer: {}",
-                        job.getId(), job.getCustomerId());
-
-                // Charge fee
-                FeeChargeResult result = feeChargeService.chargeFee(job.getId());
-
-                // Publish to Kafka (only if success)
-                if ("SUCCESS".equals(result.getStatus())) {
-                    kafkaProducer.publishFeeChargedEvent(result);
-                    success++;
-                } else {
-                    failed++;
-                }
-
-            } catch (Exception e) {
-                log.error("Error processing job: {}", job.getId(), e);
+        for (FeeChargeResult result : results) {
+            if ("SUCCESS".equals(result.getStatus())) {
+                success++;
+            } else {
                 failed++;
             }
         }
 
-        log.info("Job execution completed. Success: {}, Failed: {}", success, failed);
+        successCounter.increment(success);
+        failedCounter.increment(failed);
+        // Batch summary is logged by FeeChargeService
+        if (log.isDebugEnabled()) {
+            log.debug("Job execution completed for partition {}. Success: {}, Failed: {}", partition, success, failed);
+        }
+        return claimedJobIds.size();
+    }
+
+    private static String resolveClaimOwner() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown-host";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
     }
-}
\ No newline at end of file
+}
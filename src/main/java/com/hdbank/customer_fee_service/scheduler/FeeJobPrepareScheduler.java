@@ -6,18 +6,33 @@ import com.hdbank.customer_fee_service.entity.FeeJobStatus;
 import com.hdbank.customer_fee_service.repository.CustomerFeeConfigRepository;
 import com.hdbank.customer_fee_service.repository.CustomerFeeJobRepository;
 import com.hdbank.customer_fee_service.repository.CustomerRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Scheduler to prepare fee jobs for all active customers
  * Runs monthly on 1st day of month at 00:01
+ * Active customers are scanned in keyset chunks (id > lastId ORDER BY id) so memory stays constant
+ * A chunk that fails is retried customer by customer, so one bad customer only fails its own job
  */
 @Component
 @RequiredArgsConstructor
@@ -28,8 +43,48 @@ public class FeeJobPrepareScheduler {
     private final CustomerFeeJobRepository feeJobRepository;
     private final CustomerFeeConfigRepository feeConfigRepository;
     private final DistributedLockService lockService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     private static final String LOCK_KEY = "FEE_JOB_PREPARE_SCHEDULER";
+    private static final String ACTIVE_STATUS = "ACTIVE";
+
+    /**
+     * true: generate the month's jobs with INSERT ... SELECT ... ON CONFLICT DO NOTHING per chunk
+     * false: fall back to the per-customer loop
+     */
+    @Value("${fee.job.prepare.bulk-enabled:true}")
+    private boolean bulkEnabled;
+
+    /**
+     * Number of customers read per keyset chunk
+     */
+    @Value("${fee.job.prepare.chunk-size:1000}")
+    private int chunkSize;
+
+    // Metrics
+    private Counter createdCounter;
+    private Counter skippedCounter;
+    private Counter failedCounter;
+
+    @PostConstruct
+    void registerMetrics() {
+        createdCounter = Counter.builder("fee.job.prepare.jobs")
+                .tag("result", "created")
+                .description("Fee jobs handled by the prepare scheduler")
+                .register(meterRegistry);
+        skippedCounter = Counter.builder("fee.job.prepare.jobs")
+                .tag("result", "skipped")
+                .description("Fee jobs handled by the prepare scheduler")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("fee.job.prepare.jobs")
+                .tag("result", "failed")
+                .description("Fee jobs handled by the prepare scheduler")
+                .register(meterRegistry);
+    }
 
     @Scheduled(cron = "0 1 0 1 * ?")  // 00:01 on day 1 of every month and any day in a week
     public void prepareMonthlyFeeJobs() {
@@ -51,57 +106,185 @@ public class FeeJobPrepareScheduler {
         String billingMonth = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM"));
         log.info("Preparing fee jobs for billing month: {}", billingMonth);
 
-        List<Customer> activeCustomers = customerRepository
-                .findByStatusAndDeletedAtIsNull("ACTIVE");
-        log.info("Found {} active customers", activeCustomers.size());
+        long startedAt = System.nanoTime();
+        if (bulkEnabled) {
+            executeBulkPrepareJobs(billingMonth);
+        } else {
+            executeIterativePrepareJobs(billingMonth);
+        }
+        Timer.builder("fee.job.prepare.duration")
+                .tag("mode", bulkEnabled ? "bulk" : "iterative")
+                .description("Duration of a prepare run")
+                .register(meterRegistry)
+                .record(Duration.ofNanos(System.nanoTime() - startedAt));
+    }
+
+    /**
+     * Set-based preparation: for each chunk of customer ids the database inserts all missing jobs in one statement
+     * Skipped = active customers that already had a job or have no active fee config
+     * Failed = customers whose insert failed even on their own
+     */
+    private void executeBulkPrepareJobs(String billingMonth) {
+        LocalDate today = LocalDate.now();
+        long activeCustomers = 0;
+        long created = 0;
+        long failed = 0;
+        long lastId = 0L;
+
+        while (true) {
+            List<Long> customerIds = customerRepository.findNextIdChunkByStatus(
+                    ACTIVE_STATUS, lastId, PageRequest.of(0, chunkSize));
+            if (customerIds.isEmpty()) {
+                break;
+            }
+            long upToId = customerIds.get(customerIds.size() - 1);
+
+            try {
+                created += feeJobRepository.insertMonthlyJobsForActiveCustomers(
+                        billingMonth, today, lastId, upToId);
+            } catch (Exception e) {
+                log.error("Error creating jobs for customers in id range ({}, {}], retrying per customer",
+                        lastId, upToId, e);
+                ChunkResult result = insertPerCustomer(customerIds, billingMonth, today);
+                created += result.created();
+                failed += result.failed();
+            }
+
+            activeCustomers += customerIds.size();
+            lastId = upToId;
+        }
 
+        long skipped = activeCustomers - created - failed;
+        log.info("Found {} active customers", activeCustomers);
+        log.info("Fee job preparation completed. Created: {}, Skipped: {}, Failed: {}", created, skipped, failed);
+        createdCounter.increment(created);
+        skippedCounter.increment(skipped);
+        failedCounter.increment(failed);
+    }
+
+    /**
+     * Fallback of a failed bulk chunk: the same insert restricted to one customer id at a time
+     */
+    private ChunkResult insertPerCustomer(List<Long> customerIds, String billingMonth, LocalDate today) {
+        int created = 0;
+        int failed = 0;
+        for (Long customerId : customerIds) {
+            try {
+                created += feeJobRepository.insertMonthlyJobsForActiveCustomers(
+                        billingMonth, today, customerId - 1, customerId);
+            } catch (Exception e) {
+                log.error("Error creating job for customer {}", customerId, e);
+                failed++;
+            }
+        }
+        return new ChunkResult(created, failed);
+    }
+
+    /**
+     * Entity-based preparation: one transaction per chunk, idempotency and config checks are batched per chunk
+     * The persistence context is flushed and cleared after each chunk
+     */
+    private void executeIterativePrepareJobs(String billingMonth) {
+        LocalDate today = LocalDate.now();
+        long activeCustomers = 0;
         int created = 0;
         int skipped = 0;
+        int failed = 0;
+        long lastId = 0L;
+
+        while (true) {
+            List<Customer> chunk = customerRepository.findNextChunkByStatus(
+                    ACTIVE_STATUS, lastId, PageRequest.of(0, chunkSize));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            activeCustomers += chunk.size();
+            lastId = chunk.get(chunk.size() - 1).getId();
 
-        for (Customer customer : activeCustomers) {
             try {
-                // Check if a job already exists (idempotency)
-                String idempotencyKey = customer.getId() + "_" + billingMonth;
-                boolean exists = feeJobRepository.existsByIdempotencyKey(idempotencyKey);
-
-                if (exists) {
-                    log.debug("Job already exists for customer {} in month {}",
-                            customer.getId(), billingMonth);
-                    skipped++;
-                    continue;
-                }
-
-                // Check if customer has active fee config
-                LocalDate today = LocalDate.now();
-                boolean hasActiveFeeConfig = feeConfigRepository
-                        .findActiveConfigByCustomerIdAndDate(customer.getId(), today)
-                        .isPresent();
-
-                if (!hasActiveFeeConfig) {
-                    log.debug("Customer {} has no active fee config, skipping job creation",
-                            customer.getId());
-                    skipped++;
-                    continue;
-                }
-
-                CustomerFeeJob job = CustomerFeeJob.builder()
-                        .customerId(customer.getId())
-                        .billingMonth(billingMonth)
-                        .status(FeeJobStatus.NEW)
-                        .idempotencyKey(idempotencyKey)
-                        .build();
-
-                feeJobRepository.save(job);
-                created++;
-
-                log.info("Created fee job for customer {}: job id {}",
-                        customer.getId(), job.getId());
+                Integer chunkCreated = transactionTemplate.execute(status -> prepareChunk(chunk, billingMonth, today));
+                int createdInChunk = chunkCreated != null ? chunkCreated : 0;
+                created += createdInChunk;
+                skipped += chunk.size() - createdInChunk;
+            } catch (Exception e) {
+                log.error("Error creating jobs for customers in chunk ending at id {}, retrying per customer",
+                        lastId, e);
+                ChunkResult result = preparePerCustomer(chunk, billingMonth, today);
+                created += result.created();
+                failed += result.failed();
+                skipped += chunk.size() - result.created() - result.failed();
+            }
+        }
 
+        log.info("Found {} active customers", activeCustomers);
+        log.info("Fee job preparation completed. Created: {}, Skipped: {}, Failed: {}", created, skipped, failed);
+        createdCounter.increment(created);
+        skippedCounter.increment(skipped);
+        failedCounter.increment(failed);
+    }
+
+    /**
+     * Fallback of a failed chunk: one transaction per customer
+     */
+    private ChunkResult preparePerCustomer(List<Customer> chunk, String billingMonth, LocalDate today) {
+        int created = 0;
+        int failed = 0;
+        for (Customer customer : chunk) {
+            try {
+                Integer customerCreated = transactionTemplate.execute(
+                        status -> prepareChunk(List.of(customer), billingMonth, today));
+                created += customerCreated != null ? customerCreated : 0;
             } catch (Exception e) {
                 log.error("Error creating job for customer {}", customer.getId(), e);
+                failed++;
+            }
+        }
+        return new ChunkResult(created, failed);
+    }
+
+    private int prepareChunk(List<Customer> chunk, String billingMonth, LocalDate today) {
+        List<String> idempotencyKeys = chunk.stream()
+                .map(customer -> customer.getId() + "_" + billingMonth)
+                .collect(Collectors.toList());
+        Set<String> existingKeys = feeJobRepository.findExistingIdempotencyKeys(idempotencyKeys);
+
+        List<Long> customerIds = chunk.stream().map(Customer::getId).collect(Collectors.toList());
+        Set<Long> customersWithConfig = feeConfigRepository.findCustomerIdsWithActiveConfig(customerIds, today);
+
+        List<CustomerFeeJob> jobs = new ArrayList<>();
+        for (Customer customer : chunk) {
+            // Check if a job already exists (idempotency)
+            String idempotencyKey = customer.getId() + "_" + billingMonth;
+            if (existingKeys.contains(idempotencyKey)) {
+                log.debug("Job already exists for customer {} in month {}",
+                        customer.getId(), billingMonth);
+                continue;
+            }
+
+            // Check if customer has active fee config
+            if (!customersWithConfig.contains(customer.getId())) {
+                log.debug("Customer {} has no active fee config, skipping job creation",
+                        customer.getId());
+                continue;
             }
+
+            jobs.add(CustomerFeeJob.builder()
+                    .customerId(customer.getId())
+                    .billingMonth(billingMonth)
+                    .status(FeeJobStatus.NEW)
+                    .idempotencyKey(idempotencyKey)
+                    .build());
         }
 
-        log.info("Fee job preparation completed. Created: {}, Skipped: {}", created, skipped);
+        feeJobRepository.saveAll(jobs);
+        entityManager.flush();
+        entityManager.clear();
+
+        log.info("Created {} fee jobs for chunk ending at customer id {}",
+                jobs.size(), chunk.get(chunk.size() - 1).getId());
+        return jobs.size();
+    }
+
+    private record ChunkResult(int created, int failed) {
     }
-}
\ No newline at end of file
+}
@@ -6,16 +6,33 @@ import com.hdbank.customer_fee_service.exception.BusinessException;
 import com.hdbank.customer_fee_service.exception.EntityNotFoundException;
 import com.hdbank.customer_fee_service.repository.*;
 import com.hdbank.customer_fee_service.service.strategy.FeeCalculationContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -29,7 +46,43 @@ public class FeeChargeService {
     private final FeeTypeRepository feeTypeRepository;
     private final CustomerRepository customerRepository;
     private final FeeChargedAttemptRepository feeChargedAttemptRepository;
+    private final FeeChargedOutboxRepository feeChargedOutboxRepository;
     private final FeeCalculationContext feeCalculationContext;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private static final String INSERT_ATTEMPT_SQL = "INSERT INTO fee_charge_attempt " +
+            "(job_id, customer_id, billing_month, amount, attempt_no, status, error_code, error_message, created_at, created_by) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_OUTBOX_SQL = "INSERT INTO fee_charged_outbox " +
+            "(event_id, event_type, job_id, customer_id, fee_config_id, charged_amount, currency, billing_month, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_JOB_SQL = "UPDATE customer_fee_job " +
+            "SET status = ?, amount = ?, updated_at = ?, version = version + 1 " +
+            "WHERE id = ? AND status = 'IN_PROGRESS'";
+
+    /**
+     * Number of rows sent per JDBC batch when writing attempts and job updates in chargeFees
+     */
+    @Value("${fee.charge.jdbc-batch-size:500}")
+    private int jdbcBatchSize;
+
+    /**
+     * chargeFees logs one summary line for 1 of every N batches, batches with failures are always logged
+     * Per-job details are DEBUG only
+     */
+    @Value("${fee.charge.log.summary-every-n-batches:1}")
+    private int summaryEveryNBatches;
+
+    private final AtomicLong batchSequence = new AtomicLong();
+
+    // fee.charge.duration timers per calculation type
+    private static final String UNKNOWN_CALCULATION_TYPE = "UNKNOWN";
+    private final Map<String, Timer> successTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> failedTimers = new ConcurrentHashMap<>();
 
     /**
      * Charge fee for a specified job
@@ -55,17 +108,30 @@ public class FeeChargeService {
                     "Job is not in NEW status: " + job.getStatus());
         }
 
-        try {
-            job.setStatus(FeeJobStatus.IN_PROGRESS);
-            feeJobRepository.save(job);
+        job.setStatus(FeeJobStatus.IN_PROGRESS);
+        job.setAttemptCount(job.getAttemptCount() + 1);
+        feeJobRepository.save(job);
 
+        return charge(job);
+    }
+
+    /**
+     * Calculate and record the charge of an IN_PROGRESS job (SUCCESS or FAILED attempt)
+     */
+    private FeeChargeResult charge(CustomerFeeJob job) {
+        Long jobId = job.getId();
+        long startedAt = System.nanoTime();
+        String calculationType = null;
+        FeeChargeResult result;
+        int attemptNumber;
+
+        try {
             Customer customer = customerRepository.findById(job.getCustomerId())
                     .filter(c -> c.getDeletedAt() == null)
                     .orElseThrow(() -> new EntityNotFoundException(
                             "Customer not found with id: " + job.getCustomerId()));
 
-            // Parse billing date (from "2025-01" to "2025-01-01")
-            LocalDate billingDate = LocalDate.parse(job.getBillingMonth() + "-" + FIRST_DAY_OF_MONTH);
+            LocalDate billingDate = toBillingDate(job.getBillingMonth());
 
             CustomerFeeConfig config = feeConfigRepository
                     .findActiveConfigByCustomerIdAndDate(job.getCustomerId(), billingDate)
@@ -77,25 +143,16 @@ public class FeeChargeService {
                     .orElseThrow(() -> new EntityNotFoundException(
                             "Fee type not found with id: " + config.getFeeTypeId()));
 
-            Map<String, Object> params = config.getCalculationParams() != null
-                    ? config.getCalculationParams()
-                    : new HashMap<>();
-
-            BigDecimal calculatedFee = feeCalculationContext.calculateFee(
-                    feeType.getCalculationType(),
-                    config.getMonthlyFeeAmount(),
-                    params
-            );
-
-            log.info("Calculated fee for customer {}: {} {}",
-                    customer.getId(), calculatedFee, config.getCurrency());
+            calculationType = feeType.getCalculationType();
+            BigDecimal calculatedFee = feeCalculationContext.calculateFee(calculationType, config);
 
             // TODO: Deduct from customer balance (call payment service - implement later)
-            log.info("Deducting {} {} from customer {}",
-                    calculatedFee, config.getCurrency(), customer.getId());
+            if (log.isDebugEnabled()) {
+                log.debug("Deducting {} {} from customer {}",
+                        calculatedFee, config.getCurrency(), customer.getId());
+            }
 
-            // Get current attempt number (count previous attempts + 1)
-            int attemptNumber = getNextAttemptNumber(jobId);
+            attemptNumber = currentAttemptNumber(job);
 
             // Create SUCCESS audit log
             FeeChargeAttempt successAttempt = FeeChargeAttempt.builder()
@@ -113,9 +170,7 @@ public class FeeChargeService {
             job.setAmount(calculatedFee);
             feeJobRepository.save(job);
 
-            log.info("Fee charged successfully for job: {} (attempt: {})", jobId, attemptNumber);
-
-            return FeeChargeResult.builder()
+            result = FeeChargeResult.builder()
                     .jobId(jobId)
                     .customerId(customer.getId())
                     .feeConfigId(config.getId())  // Add this field
@@ -129,8 +184,7 @@ public class FeeChargeService {
         } catch (Exception e) {
             log.error("Error charging fee for job: {}", jobId, e);
 
-            // Get current attempt number
-            int attemptNumber = getNextAttemptNumber(jobId);
+            attemptNumber = currentAttemptNumber(job);
 
             // Create FAILED audit log
             FeeChargeAttempt failedAttempt = FeeChargeAttempt.builder()
@@ -149,6 +203,7 @@ public class FeeChargeService {
             job.setStatus(FeeJobStatus.FAILED);
             // TODO: Entity has no errorMessage field, could add to migration later if needed
             feeJobRepository.save(job);
+            recordChargeLatency(calculationType, false, startedAt);
 
             return FeeChargeResult.builder()
                     .jobId(jobId)
@@ -159,12 +214,337 @@ public class FeeChargeService {
                     .chargedAt(Instant.now())
                     .build();
         }
+
+        // FeeChargedEvent goes out through the outbox, committed together with the charge
+        // Outside the try: a failed outbox write rolls back the whole charge instead of becoming a FAILED attempt
+        feeChargedOutboxRepository.save(toOutbox(result));
+
+        log.debug("Fee charged successfully for job: {} (attempt: {})", jobId, attemptNumber);
+        recordChargeLatency(calculationType, true, startedAt);
+        return result;
+    }
+
+    /**
+     * Charge a batch of claimed (IN_PROGRESS) jobs in one transaction
+     * Flow:
+     * 1. Load jobs, customers, active configs and fee types with a few IN queries
+     * 2. Calculate every fee in memory, a failing job only produces a FAILED attempt for that job
+     * 3. Write attempts, job updates and outbox rows (FeeChargedEvent) with JDBC batching (fee.charge.jdbc-batch-size)
+     * If the batch write itself fails, the batch is rolled back and every job is charged on its own
+     */
+    public List<FeeChargeResult> chargeFees(List<Long> jobIds) {
+        if (jobIds == null || jobIds.isEmpty()) {
+            return List.of();
+        }
+
+        long startedAt = System.nanoTime();
+        List<FeeChargeResult> results;
+        boolean fallback = false;
+        try {
+            results = transactionTemplate.execute(status -> chargeBatch(jobIds));
+        } catch (Exception e) {
+            log.error("Batch charge failed for {} jobs, falling back to per-job charging", jobIds.size(), e);
+            fallback = true;
+            results = chargeOneByOne(jobIds);
+        }
+
+        logBatchSummary(results, fallback, System.nanoTime() - startedAt);
+        return results;
+    }
+
+    private List<FeeChargeResult> chargeOneByOne(List<Long> jobIds) {
+        List<FeeChargeResult> results = new ArrayList<>(jobIds.size());
+        for (Long jobId : jobIds) {
+            try {
+                results.add(transactionTemplate.execute(status -> chargeInProgressJob(jobId)));
+            } catch (Exception jobError) {
+                log.error("Error charging fee for job: {}", jobId, jobError);
+                results.add(failedResult(jobId, null, null, jobError.getMessage()));
+            }
+        }
+        return results;
+    }
+
+    private FeeChargeResult chargeInProgressJob(Long jobId) {
+        CustomerFeeJob job = feeJobRepository.findById(jobId)
+                .orElseThrow(() -> new EntityNotFoundException("Job not found with id: " + jobId));
+
+        if (!FeeJobStatus.IN_PROGRESS.equals(job.getStatus())) {
+            throw new BusinessException("JOB_INVALID_STATUS",
+                    "Job is not in IN_PROGRESS status: " + job.getStatus());
+        }
+        return charge(job);
+    }
+
+    private List<FeeChargeResult> chargeBatch(List<Long> jobIds) {
+        Map<Long, CustomerFeeJob> jobs = indexById(feeJobRepository.findAllById(jobIds), CustomerFeeJob::getId);
+
+        Set<Long> customerIds = jobs.values().stream()
+                .map(CustomerFeeJob::getCustomerId)
+                .collect(Collectors.toSet());
+        Map<Long, Customer> customers = indexById(customerRepository.findAllById(customerIds), Customer::getId);
+
+        // Active config per billing month and customer
+        Map<String, Map<Long, CustomerFeeConfig>> configsByMonth = new HashMap<>();
+        for (String billingMonth : jobs.values().stream().map(CustomerFeeJob::getBillingMonth).collect(Collectors.toSet())) {
+            List<CustomerFeeConfig> configs = feeConfigRepository
+                    .findActiveConfigsByCustomerIdsAndDate(customerIds, toBillingDate(billingMonth));
+            configsByMonth.put(billingMonth, configs.stream()
+                    .collect(Collectors.toMap(CustomerFeeConfig::getCustomerId, Function.identity(), (first, second) -> first)));
+        }
+
+        Set<Long> feeTypeIds = configsByMonth.values().stream()
+                .flatMap(configs -> configs.values().stream())
+                .map(CustomerFeeConfig::getFeeTypeId)
+                .collect(Collectors.toSet());
+        Map<Long, FeeType> feeTypes = indexById(feeTypeRepository.findAllById(feeTypeIds), FeeType::getId);
+
+        Instant now = Instant.now();
+        List<FeeChargeAttempt> attempts = new ArrayList<>(jobs.size());
+        List<FeeChargeResult> results = new ArrayList<>(jobIds.size());
+
+        for (Long jobId : jobIds) {
+            CustomerFeeJob job = jobs.get(jobId);
+            if (job == null) {
+                results.add(failedResult(jobId, null, null, "Job not found with id: " + jobId));
+                continue;
+            }
+            if (!FeeJobStatus.IN_PROGRESS.equals(job.getStatus())) {
+                results.add(failedResult(jobId, job.getCustomerId(), job.getBillingMonth(),
+                        "Job is not in IN_PROGRESS status: " + job.getStatus()));
+                continue;
+            }
+
+            int attemptNumber = currentAttemptNumber(job);
+            long startedAt = System.nanoTime();
+            String calculationType = null;
+            try {
+                Customer customer = customers.get(job.getCustomerId());
+                if (customer == null || customer.getDeletedAt() != null) {
+                    throw new EntityNotFoundException("Customer not found with id: " + job.getCustomerId());
+                }
+
+                CustomerFeeConfig config = configsByMonth.get(job.getBillingMonth()).get(job.getCustomerId());
+                if (config == null) {
+                    throw new EntityNotFoundException("No active fee config for customer: " + job.getCustomerId());
+                }
+
+                FeeType feeType = feeTypes.get(config.getFeeTypeId());
+                if (feeType == null || !Boolean.TRUE.equals(feeType.getIsActive())) {
+                    throw new EntityNotFoundException("Fee type not found with id: " + config.getFeeTypeId());
+                }
+
+                calculationType = feeType.getCalculationType();
+                BigDecimal calculatedFee = feeCalculationContext.calculateFee(calculationType, config);
+
+                attempts.add(FeeChargeAttempt.builder()
+                        .jobId(jobId)
+                        .customerId(customer.getId())
+                        .billingMonth(job.getBillingMonth())
+                        .amount(calculatedFee)
+                        .attemptNo(attemptNumber)
+                        .status(AttemptStatus.SUCCESS)
+                        .createdAt(now)
+                        .createdBy(0L) // System user
+                        .build());
+
+                results.add(FeeChargeResult.builder()
+                        .jobId(jobId)
+                        .customerId(customer.getId())
+                        .feeConfigId(config.getId())
+                        .chargedAmount(calculatedFee)
+                        .currency(config.getCurrency())
+                        .billingMonth(job.getBillingMonth())
+                        .status("SUCCESS")
+                        .chargedAt(now)
+                        .build());
+                recordChargeLatency(calculationType, true, startedAt);
+
+            } catch (Exception e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Error charging fee for job: {} - {}", jobId, e.getMessage());
+                }
+
+                attempts.add(FeeChargeAttempt.builder()
+                        .jobId(jobId)
+                        .customerId(job.getCustomerId())
+                        .billingMonth(job.getBillingMonth())
+                        .amount(BigDecimal.ZERO) // No amount charged on failure
+                        .attemptNo(attemptNumber)
+                        .status(AttemptStatus.FAILED)
+                        .errorCode(e.getClass().getSimpleName())
+                        .errorMessage(e.getMessage())
+                        .createdAt(now)
+                        .createdBy(0L) // System user
+                        .build());
+
+                results.add(failedResult(jobId, job.getCustomerId(), job.getBillingMonth(), e.getMessage()));
+                recordChargeLatency(calculationType, false, startedAt);
+            }
+        }
+
+        writeAttempts(attempts);
+        updateJobs(attempts);
+        writeOutbox(results);
+
+        log.debug("Charged batch of {} jobs: {} attempts written", jobIds.size(), attempts.size());
+        return results;
+    }
+
+    /**
+     * Per-job charge latency: fee.charge.duration{calculationType, outcome}
+     * In batches only the per-job work is timed, the shared loads and JDBC batch writes are not
+     */
+    private void recordChargeLatency(String calculationType, boolean success, long startedAt) {
+        String type = calculationType != null ? calculationType : UNKNOWN_CALCULATION_TYPE;
+        Map<String, Timer> timers = success ? successTimers : failedTimers;
+        Timer timer = timers.computeIfAbsent(type, key -> Timer.builder("fee.charge.duration")
+                .tag("calculationType", key)
+                .tag("outcome", success ? "success" : "failed")
+                .description("Latency of charging one fee job")
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        timer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * One key=value summary line per batch (sampled), e.g.
+     * fee_charge_batch seq=42 jobs=100 success=98 failed=2 amount=4900000.00 fallback=false elapsed_ms=85
+     */
+    private void logBatchSummary(List<FeeChargeResult> results, boolean fallback, long elapsedNanos) {
+        long sequence = batchSequence.incrementAndGet();
+
+        int success = 0;
+        BigDecimal chargedAmount = BigDecimal.ZERO;
+        for (FeeChargeResult result : results) {
+            if ("SUCCESS".equals(result.getStatus())) {
+                success++;
+                chargedAmount = chargedAmount.add(result.getChargedAmount());
+            }
+        }
+        int failed = results.size() - success;
+
+        boolean sampled = summaryEveryNBatches <= 1 || sequence % summaryEveryNBatches == 0;
+        if (!sampled && failed == 0 && !fallback) {
+            return;
+        }
+        log.info("fee_charge_batch seq={} jobs={} success={} failed={} amount={} fallback={} elapsed_ms={}",
+                sequence, results.size(), success, failed, chargedAmount, fallback, elapsedNanos / 1_000_000);
+    }
+
+    /**
+     * One outbox row per SUCCESS result, in the batch transaction
+     */
+    private void writeOutbox(List<FeeChargeResult> results) {
+        List<FeeChargedOutbox> rows = results.stream()
+                .filter(result -> "SUCCESS".equals(result.getStatus()))
+                .map(this::toOutbox)
+                .collect(Collectors.toList());
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_OUTBOX_SQL, rows, jdbcBatchSize, (ps, row) -> {
+            ps.setString(1, row.getEventId());
+            ps.setString(2, row.getEventType());
+            ps.setLong(3, row.getJobId());
+            ps.setLong(4, row.getCustomerId());
+            if (row.getFeeConfigId() != null) {
+                ps.setLong(5, row.getFeeConfigId());
+            } else {
+                ps.setNull(5, Types.BIGINT);
+            }
+            ps.setBigDecimal(6, row.getChargedAmount());
+            ps.setString(7, row.getCurrency());
+            ps.setString(8, row.getBillingMonth());
+            ps.setTimestamp(9, Timestamp.from(row.getCreatedAt()));
+        });
+    }
+
+    private FeeChargedOutbox toOutbox(FeeChargeResult result) {
+        return FeeChargedOutbox.builder()
+                .eventId(UUID.randomUUID().toString())
+                .jobId(result.getJobId())
+                .customerId(result.getCustomerId())
+                .feeConfigId(result.getFeeConfigId())
+                .chargedAmount(result.getChargedAmount())
+                .currency(result.getCurrency())
+                .billingMonth(result.getBillingMonth())
+                .createdAt(result.getChargedAt())
+                .build();
+    }
+
+    private void writeAttempts(List<FeeChargeAttempt> attempts) {
+        jdbcTemplate.batchUpdate(INSERT_ATTEMPT_SQL, attempts, jdbcBatchSize, (ps, attempt) -> {
+            ps.setLong(1, attempt.getJobId());
+            ps.setLong(2, attempt.getCustomerId());
+            ps.setString(3, attempt.getBillingMonth());
+            ps.setBigDecimal(4, attempt.getAmount());
+            ps.setInt(5, attempt.getAttemptNo());
+            ps.setString(6, attempt.getStatus().name());
+            ps.setString(7, attempt.getErrorCode());
+            ps.setString(8, attempt.getErrorMessage());
+            ps.setTimestamp(9, Timestamp.from(attempt.getCreatedAt()));
+            ps.setLong(10, attempt.getCreatedBy());
+        });
+    }
+
+    /**
+     * One job update per attempt: SUCCESS -> DONE with amount, FAILED -> FAILED
+     * Fails the whole batch if a job is no longer IN_PROGRESS (changed concurrently)
+     */
+    private void updateJobs(List<FeeChargeAttempt> attempts) {
+        int[][] updated = jdbcTemplate.batchUpdate(UPDATE_JOB_SQL, attempts, jdbcBatchSize, (ps, attempt) -> {
+            boolean success = AttemptStatus.SUCCESS.equals(attempt.getStatus());
+            ps.setString(1, success ? FeeJobStatus.DONE.name() : FeeJobStatus.FAILED.name());
+            if (success) {
+                ps.setBigDecimal(2, attempt.getAmount());
+            } else {
+                ps.setNull(2, Types.NUMERIC);
+            }
+            ps.setTimestamp(3, Timestamp.from(attempt.getCreatedAt()));
+            ps.setLong(4, attempt.getJobId());
+        });
+
+        for (int[] batch : updated) {
+            for (int rows : batch) {
+                if (rows == 0) {
+                    throw new BusinessException("JOB_CONCURRENT_UPDATE",
+                            "A job in the batch is no longer IN_PROGRESS");
+                }
+            }
+        }
+    }
+
+    private static <T> Map<Long, T> indexById(List<T> entities, Function<T, Long> idGetter) {
+        Map<Long, T> index = new LinkedHashMap<>();
+        for (T entity : entities) {
+            index.put(idGetter.apply(entity), entity);
+        }
+        return index;
+    }
+
+    private static LocalDate toBillingDate(String billingMonth) {
+        // Parse billing date (from "2025-01" to "2025-01-01")
+        return LocalDate.parse(billingMonth + "-" + FIRST_DAY_OF_MONTH);
+    }
+
+    private static FeeChargeResult failedResult(Long jobId, Long customerId, String billingMonth, String errorMessage) {
+        return FeeChargeResult.builder()
+                .jobId(jobId)
+                .customerId(customerId)
+                .billingMonth(billingMonth)
+                .status("FAILED")
+                .errorMessage(errorMessage)
+                .chargedAt(Instant.now())
+                .build();
     }
 
     /**
-     * Get next attempt number for this job
+     * Attempt number of the running attempt
+     * attempt_count is incremented atomically when the job is claimed (or started by chargeFee),
+     * so no lookup of previous attempts is needed
      */
-    private int getNextAttemptNumber(Long jobId) {
-        return feeChargedAttemptRepository.findByJobIdOrderByAttemptNoAsc(jobId).size() + 1;
+    private static int currentAttemptNumber(CustomerFeeJob job) {
+        return Math.max(job.getAttemptCount(), 1);
     }
 }
@@ -0,0 +1,339 @@
+package com.hdbank.customer_fee_service.service;
+
+import com.hdbank.customer_fee_service.dto.request.FeeChargedDlqReplayRequest;
+import com.hdbank.customer_fee_service.dto.response.FeeChargedDlqReplayResponse;
+import com.hdbank.customer_fee_service.entity.FeeChargedDlq;
+import com.hdbank.customer_fee_service.exception.BusinessException;
+import com.hdbank.customer_fee_service.exception.EntityNotFoundException;
+import com.hdbank.customer_fee_service.exception.ValidationException;
+import com.hdbank.customer_fee_service.kafka.FeeChargedEvent;
+import com.hdbank.customer_fee_service.kafka.FeeChargedProducer;
+import com.hdbank.customer_fee_service.kafka.FeeChargedRetryRouter;
+import com.hdbank.customer_fee_service.repository.FeeChargedDlqRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Store of FeeChargedEvents that reached the DLQ (fee_charged_dlq) and bulk replay to payment.fee.charged.v1
+ * Replays run one at a time on feeDlqReplayExecutor, in chunks published through FeeChargedProducer and paced
+ * to rate-per-second. Progress is kept in memory on the node that runs the replay.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FeeChargedDlqService {
+
+    private static final String INSERT_DLQ_SQL = "INSERT INTO fee_charged_dlq " +
+            "(event_id, event_type, event_time, job_id, customer_id, fee_config_id, charged_amount, currency, " +
+            "billing_month, retry_attempts, last_error, source_topic, source_partition, source_offset, received_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (source_topic, source_partition, source_offset) DO NOTHING";
+
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final FeeChargedDlqRepository dlqRepository;
+    private final FeeChargedProducer kafkaProducer;
+    private final JdbcTemplate jdbcTemplate;
+    private final ThreadPoolTaskExecutor feeDlqReplayExecutor;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${fee.dlq.replay.rate-per-second:200}")
+    private int defaultRatePerSecond;
+
+    @Value("${fee.dlq.replay.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${fee.dlq.replay.send-timeout:10s}")
+    private Duration sendTimeout;  // Max wait for the acks of one chunk
+
+    @Value("${fee.dlq.replay.history-retention:1d}")
+    private Duration historyRetention;  // How long finished replays stay visible
+
+    private final Map<String, ReplayProgress> replays = new ConcurrentHashMap<>();
+
+    // Metrics
+    private Counter storedCounter;
+    private Counter replayedCounter;
+    private Counter replayFailedCounter;
+
+    @PostConstruct
+    void registerMetrics() {
+        storedCounter = Counter.builder("fee.dlq.stored")
+                .description("DLQ FeeChargedEvents stored in fee_charged_dlq")
+                .register(meterRegistry);
+        replayedCounter = Counter.builder("fee.dlq.replayed")
+                .tag("result", "published")
+                .description("DLQ FeeChargedEvents re-published to payment.fee.charged.v1")
+                .register(meterRegistry);
+        replayFailedCounter = Counter.builder("fee.dlq.replayed")
+                .tag("result", "failed")
+                .description("DLQ FeeChargedEvents re-published to payment.fee.charged.v1")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Insert the DLQ records of one poll in JDBC batches
+     * Redelivered records (same topic/partition/offset) are ignored
+     * @return number of records with a decodable event
+     */
+    public int store(List<ConsumerRecord<String, FeeChargedEvent>> records) {
+        Timestamp receivedAt = Timestamp.from(Instant.now());
+        List<ConsumerRecord<String, FeeChargedEvent>> decoded = records.stream()
+                .filter(record -> record.value() != null)
+                .toList();
+        if (decoded.isEmpty()) {
+            return 0;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_DLQ_SQL, decoded, chunkSize, (ps, record) -> {
+            FeeChargedEvent event = record.value();
+            ps.setString(1, event.getEventId());  // NULL flags the row as not replayable
+            ps.setString(2, event.getEventType());
+            ps.setString(3, event.getEventTime());
+            setLong(ps, 4, event.getJobId());
+            setLong(ps, 5, event.getCustomerId());
+            setLong(ps, 6, event.getFeeConfigId());
+            ps.setBigDecimal(7, event.getChargedAmount());
+            ps.setString(8, event.getCurrency());
+            ps.setString(9, event.getBillingMonth());
+            ps.setInt(10, FeeChargedRetryRouter.attemptOf(record));
+            ps.setString(11, lastError(record));
+            ps.setString(12, record.topic());
+            ps.setInt(13, record.partition());
+            ps.setLong(14, record.offset());
+            ps.setTimestamp(15, receivedAt);
+        });
+        storedCounter.increment(decoded.size());
+        return decoded.size();
+    }
+
+    public List<FeeChargedDlq> getDlqEvents(String billingMonth, Long customerId, boolean includeReplayed,
+                                            long afterId, int size) {
+        return dlqRepository.findNextByFilter(afterId, billingMonth, customerId, includeReplayed,
+                PageRequest.of(0, size));
+    }
+
+    /**
+     * Queue a replay of the selected (ids) or filtered (billing month / customer) DLQ events
+     */
+    public FeeChargedDlqReplayResponse startReplay(FeeChargedDlqReplayRequest request) {
+        boolean byIds = request.getIds() != null && !request.getIds().isEmpty();
+        if (!byIds && request.getBillingMonth() == null && request.getCustomerId() == null) {
+            throw new ValidationException("Replay needs ids, billing_month or customer_id");
+        }
+
+        int rate = request.getRatePerSecond() != null ? request.getRatePerSecond() : defaultRatePerSecond;
+        long total = byIds
+                ? request.getIds().size()
+                : dlqRepository.countByFilter(request.getBillingMonth(), request.getCustomerId(), request.isIncludeReplayed());
+
+        ReplayProgress progress = new ReplayProgress(UUID.randomUUID().toString(), total, rate);
+        pruneHistory();
+        replays.put(progress.replayId, progress);
+        try {
+            feeDlqReplayExecutor.execute(() -> runReplay(progress, request, byIds));
+        } catch (TaskRejectedException e) {
+            replays.remove(progress.replayId);
+            throw new BusinessException("DLQ_REPLAY_BUSY", "Too many DLQ replays queued, try again later");
+        }
+
+        log.info("Queued DLQ replay {}: {} events at {} events/s (ids: {}, billingMonth: {}, customerId: {})",
+                progress.replayId, total, rate, byIds, request.getBillingMonth(), request.getCustomerId());
+        return progress.toResponse();
+    }
+
+    public FeeChargedDlqReplayResponse getReplay(String replayId) {
+        ReplayProgress progress = replays.get(replayId);
+        if (progress == null) {
+            throw new EntityNotFoundException("DLQ replay not found: " + replayId);
+        }
+        return progress.toResponse();
+    }
+
+    private void runReplay(ReplayProgress progress, FeeChargedDlqReplayRequest request, boolean byIds) {
+        progress.status = "RUNNING";
+        progress.startedAt = Instant.now();
+        int chunk = Math.max(1, Math.min(chunkSize, progress.ratePerSecond));
+        long minChunkNanos = TimeUnit.SECONDS.toNanos(1) * chunk / progress.ratePerSecond;
+
+        try {
+            long afterId = 0L;
+            int idOffset = 0;
+            while (true) {
+                List<FeeChargedDlq> rows;
+                if (byIds) {
+                    if (idOffset >= request.getIds().size()) {
+                        break;
+                    }
+                    List<Long> ids = request.getIds().subList(idOffset, Math.min(idOffset + chunk, request.getIds().size()));
+                    idOffset += ids.size();
+                    rows = dlqRepository.findByIdInOrderById(ids);
+                    progress.failed.addAndGet(ids.size() - rows.size());  // Unknown ids
+                } else {
+                    rows = dlqRepository.findNextByFilter(afterId, request.getBillingMonth(), request.getCustomerId(),
+                            request.isIncludeReplayed(), PageRequest.of(0, chunk));
+                    if (rows.isEmpty()) {
+                        break;
+                    }
+                    afterId = rows.get(rows.size() - 1).getId();
+                }
+
+                long chunkStartedAt = System.nanoTime();
+                replayChunk(progress, rows);
+
+                // Throttle: one chunk per (chunk / rate) seconds
+                long remainingNanos = minChunkNanos - (System.nanoTime() - chunkStartedAt);
+                if (remainingNanos > 0) {
+                    TimeUnit.NANOSECONDS.sleep(remainingNanos);
+                }
+            }
+            progress.status = "COMPLETED";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            progress.status = "FAILED";
+            progress.error = "Interrupted";
+        } catch (Exception e) {
+            log.error("DLQ replay {} failed", progress.replayId, e);
+            progress.status = "FAILED";
+            progress.error = e.getMessage();
+        } finally {
+            progress.finishedAt = Instant.now();
+        }
+        log.info("DLQ replay {} {}: published {}, failed {} of {}", progress.replayId, progress.status,
+                progress.published.get(), progress.failed.get(), progress.total);
+    }
+
+    private void replayChunk(ReplayProgress progress, List<FeeChargedDlq> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        // Without an event id consumers could not deduplicate the replay: count the row as failed
+        List<FeeChargedEvent> events = new ArrayList<>(rows.size());
+        List<Long> missingEventIds = new ArrayList<>();
+        for (FeeChargedDlq row : rows) {
+            if (row.getEventId() != null) {
+                events.add(toEvent(row));
+            } else {
+                missingEventIds.add(row.getId());
+            }
+        }
+        if (!missingEventIds.isEmpty()) {
+            log.warn("DLQ replay {} skipped rows without an event id: {}", progress.replayId, missingEventIds);
+        }
+        Set<String> acknowledged = events.isEmpty() ? Set.of() : kafkaProducer.publishBatch(events, sendTimeout);
+
+        List<Long> replayedIds = new ArrayList<>(acknowledged.size());
+        for (FeeChargedDlq row : rows) {
+            if (acknowledged.contains(row.getEventId())) {
+                replayedIds.add(row.getId());
+            }
+        }
+        if (!replayedIds.isEmpty()) {
+            dlqRepository.markReplayed(replayedIds, Instant.now());
+        }
+
+        int failed = rows.size() - replayedIds.size();
+        progress.published.addAndGet(replayedIds.size());
+        progress.failed.addAndGet(failed);
+        replayedCounter.increment(replayedIds.size());
+        replayFailedCounter.increment(failed);
+    }
+
+    // Keep the event id: the event was never processed, consumers deduplicate on it
+    private FeeChargedEvent toEvent(FeeChargedDlq row) {
+        return FeeChargedEvent.builder()
+                .eventId(row.getEventId())
+                .eventTime(row.getEventTime())
+                .jobId(row.getJobId())
+                .customerId(row.getCustomerId())
+                .feeConfigId(row.getFeeConfigId())
+                .chargedAmount(row.getChargedAmount())
+                .currency(row.getCurrency())
+                .billingMonth(row.getBillingMonth())
+                .eventType(row.getEventType())
+                .build();
+    }
+
+    private void pruneHistory() {
+        Instant finishedBefore = Instant.now().minus(historyRetention);
+        replays.values().removeIf(progress ->
+                progress.finishedAt != null && progress.finishedAt.isBefore(finishedBefore));
+    }
+
+    private static String lastError(ConsumerRecord<?, ?> record) {
+        Header header = record.headers().lastHeader(FeeChargedRetryRouter.ERROR_HEADER);
+        if (header == null) {
+            return null;
+        }
+        String error = new String(header.value(), StandardCharsets.UTF_8);
+        return error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+
+    private static void setLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value != null) {
+            ps.setLong(index, value);
+        } else {
+            ps.setNull(index, Types.BIGINT);
+        }
+    }
+
+    private static final class ReplayProgress {
+
+        private final String replayId;
+        private final long total;
+        private final int ratePerSecond;
+        private final AtomicLong published = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private volatile String status = "QUEUED";
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        private ReplayProgress(String replayId, long total, int ratePerSecond) {
+            this.replayId = replayId;
+            this.total = total;
+            this.ratePerSecond = ratePerSecond;
+        }
+
+        private FeeChargedDlqReplayResponse toResponse() {
+            return FeeChargedDlqReplayResponse.builder()
+                    .replayId(replayId)
+                    .status(status)
+                    .total(total)
+                    .published(published.get())
+                    .failed(failed.get())
+                    .ratePerSecond(ratePerSecond)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .error(error)
+                    .build();
+        }
+    }
+}
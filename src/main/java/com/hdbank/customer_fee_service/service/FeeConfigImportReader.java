@@ -0,0 +1,155 @@
+package com.hdbank.customer_fee_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hdbank.customer_fee_service.dto.request.CreateFeeConfigRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads bulk import rows one line at a time, so the input is never held in memory
+ * NDJSON: one CreateFeeConfigRequest JSON object per line.
+ * CSV: a header line naming the columns (customer_id, fee_type_id, monthly_fee_amount, currency, effective_from,
+ * effective_to, calculation_params), then one row per line; quote fields containing commas ("" = a quote),
+ * e.g. calculation_params JSON. Blank lines are skipped. A row that cannot be parsed carries its error.
+ */
+class FeeConfigImportReader {
+
+    private static final TypeReference<Map<String, Object>> PARAMS_TYPE = new TypeReference<>() {
+    };
+
+    private final BufferedReader reader;
+    private final FeeConfigImportService.Format format;
+    private final ObjectMapper objectMapper;
+
+    private Map<String, Integer> csvColumns;
+    private long lineNumber;
+
+    /**
+     * @param lineNumber line in the input (1-based), reported back in the results
+     */
+    record Row(long lineNumber, CreateFeeConfigRequest request, String error) {
+    }
+
+    FeeConfigImportReader(BufferedReader reader, FeeConfigImportService.Format format, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return the next row, or null at the end of the input
+     */
+    Row next() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == FeeConfigImportService.Format.NDJSON) {
+                return parseJson(line);
+            }
+            if (csvColumns == null) {
+                csvColumns = parseHeader(line);
+                continue;
+            }
+            return parseCsv(line);
+        }
+        return null;
+    }
+
+    private Row parseJson(String line) {
+        try {
+            return new Row(lineNumber, objectMapper.readValue(line, CreateFeeConfigRequest.class), null);
+        } catch (JsonProcessingException e) {
+            return new Row(lineNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private static Map<String, Integer> parseHeader(String line) {
+        List<String> names = splitCsv(line);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        return columns;
+    }
+
+    private Row parseCsv(String line) {
+        try {
+            List<String> fields = splitCsv(line);
+            CreateFeeConfigRequest request = new CreateFeeConfigRequest();
+            String customerId = field(fields, "customer_id");
+            request.setCustomerId(customerId != null ? Long.valueOf(customerId) : null);
+            String feeTypeId = field(fields, "fee_type_id");
+            request.setFeeTypeId(feeTypeId != null ? Long.valueOf(feeTypeId) : null);
+            String amount = field(fields, "monthly_fee_amount");
+            request.setMonthlyFeeAmount(amount != null ? new BigDecimal(amount) : null);
+            request.setCurrency(field(fields, "currency"));
+            String from = field(fields, "effective_from");
+            request.setEffectiveFrom(from != null ? LocalDate.parse(from) : null);
+            String to = field(fields, "effective_to");
+            request.setEffectiveTo(to != null ? LocalDate.parse(to) : null);
+            String params = field(fields, "calculation_params");
+            request.setCalculationParams(params != null ? objectMapper.readValue(params, PARAMS_TYPE) : null);
+            return new Row(lineNumber, request, null);
+        } catch (JsonProcessingException e) {
+            return new Row(lineNumber, null, "Malformed calculation_params: " + e.getOriginalMessage());
+        } catch (RuntimeException e) {
+            return new Row(lineNumber, null, "Malformed CSV row: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Trimmed value of a column, null when the column is missing or empty
+     */
+    private String field(List<String> fields, String column) {
+        Integer index = csvColumns.get(column);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
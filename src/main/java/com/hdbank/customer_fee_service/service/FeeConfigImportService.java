@@ -0,0 +1,368 @@
+package com.hdbank.customer_fee_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hdbank.customer_fee_service.cache.FeeConfigCacheInvalidator;
+import com.hdbank.customer_fee_service.dto.request.CreateFeeConfigRequest;
+import com.hdbank.customer_fee_service.dto.response.FeeConfigImportResult;
+import com.hdbank.customer_fee_service.entity.Customer;
+import com.hdbank.customer_fee_service.entity.CustomerFeeConfig;
+import com.hdbank.customer_fee_service.entity.FeeType;
+import com.hdbank.customer_fee_service.repository.CustomerFeeConfigRepository;
+import com.hdbank.customer_fee_service.repository.CustomerRepository;
+import com.hdbank.customer_fee_service.repository.FeeTypeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Streaming bulk import of fee configs (POST /api/v1/fee-configs/import)
+ * Rows are read one at a time and handled in chunks of chunk-size: field validation (same constraints as
+ * POST /api/v1/fee-configs), one lookup of the chunk's customers and fee types, overlap checks against a
+ * FeeConfigIntervalIndex per customer (existing configs + rows accepted so far), then one JDBC batch insert
+ * per chunk in its own transaction. Each chunk's results are written and flushed before the next chunk is read.
+ * The feeConfigs cache is invalidated once, at the end.
+ * Metrics: fee.config.import.rows{result}
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FeeConfigImportService {
+
+    public enum Format { NDJSON, CSV }
+
+    // Ids are taken from the sequence up front, so accepted rows can be indexed and reported before the insert
+    private static final String NEXT_IDS_SQL =
+            "SELECT nextval('customer_fee_config_id_seq') FROM generate_series(1, ?)";
+
+    private static final String INSERT_CONFIG_SQL = "INSERT INTO customer_fee_config " +
+            "(id, customer_id, fee_type_id, monthly_fee_amount, currency, effective_from, effective_to, " +
+            "calculation_params, created_by, updated_by) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, CAST(? AS jsonb), 0, 0)";
+
+    // A chunk that hits ex_customer_fee_config_no_overlap (concurrent writer) is re-checked once
+    private static final int INSERT_ATTEMPTS = 2;
+
+    private final CustomerRepository customerRepository;
+    private final FeeTypeRepository feeTypeRepository;
+    private final CustomerFeeConfigRepository customerFeeConfigRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final FeeConfigCacheInvalidator feeConfigCacheInvalidator;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${fee.config.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${fee.config.import.clear-cache-threshold:10000}")
+    private int clearCacheThreshold;  // Above this many customers the whole feeConfigs cache is cleared
+
+    // Metrics
+    private Counter createdCounter;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    void registerMetrics() {
+        createdCounter = Counter.builder("fee.config.import.rows")
+                .tag("result", "created")
+                .description("Bulk imported fee config rows")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("fee.config.import.rows")
+                .tag("result", "rejected")
+                .description("Bulk imported fee config rows")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Import the rows of input, writing one FeeConfigImportResult line per row to output
+     * Chunks are committed as they go: a failure stops the import but keeps the rows created before it
+     * @return the summary, also written as the last line
+     */
+    public FeeConfigImportResult importConfigs(InputStream input, Format format, OutputStream output) throws IOException {
+        FeeConfigImportReader rows = new FeeConfigImportReader(
+                new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)), format, objectMapper);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        ImportState state = new ImportState();
+        List<FeeConfigImportReader.Row> chunk = new ArrayList<>(chunkSize);
+
+        try {
+            FeeConfigImportReader.Row row;
+            while ((row = rows.next()) != null) {
+                chunk.add(row);
+                if (chunk.size() >= chunkSize) {
+                    write(writer, processChunk(chunk, state));
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                write(writer, processChunk(chunk, state));
+            }
+        } catch (RuntimeException e) {
+            // The cause (SQL, constraint names) stays in the log, the client only learns where the import stopped
+            Long abortedLine = chunk.isEmpty() ? null : chunk.get(0).lineNumber();
+            log.error("Fee config import aborted after {} rows, at line {}", state.total, abortedLine, e);
+            write(writer, List.of(FeeConfigImportResult.builder()
+                    .status("ABORTED")
+                    .line(abortedLine)
+                    .error(abortedLine != null
+                            ? "Import aborted by an internal error, rows from line " + abortedLine + " on were not processed"
+                            : "Import aborted by an internal error")
+                    .build()));
+        } finally {
+            // Chunks are committed as they go, so invalidate even when the import stopped early
+            invalidateCache(state.touchedCustomers);
+        }
+
+        FeeConfigImportResult summary = FeeConfigImportResult.builder()
+                .status("SUMMARY")
+                .total(state.total)
+                .created(state.created)
+                .rejected(state.rejected)
+                .build();
+        write(writer, List.of(summary));
+        log.info("Fee config import finished: total={}, created={}, rejected={}",
+                state.total, state.created, state.rejected);
+        return summary;
+    }
+
+    private List<FeeConfigImportResult> processChunk(List<FeeConfigImportReader.Row> chunk, ImportState state) {
+        FeeConfigImportResult[] results = new FeeConfigImportResult[chunk.size()];
+        List<Integer> candidates = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            FeeConfigImportReader.Row row = chunk.get(i);
+            String error = row.error() != null ? row.error() : validate(row.request());
+            if (error != null) {
+                results[i] = rejected(row, error);
+            } else {
+                candidates.add(i);
+            }
+        }
+
+        if (!candidates.isEmpty()) {
+            Set<Long> customerIds = candidates.stream()
+                    .map(i -> chunk.get(i).request().getCustomerId())
+                    .collect(Collectors.toSet());
+            Set<Long> activeCustomerIds = customerRepository.findAllById(customerIds).stream()
+                    .filter(c -> c.getDeletedAt() == null)
+                    .map(Customer::getId)
+                    .collect(Collectors.toSet());
+            state.loadFeeTypes(candidates.stream()
+                    .map(i -> chunk.get(i).request().getFeeTypeId())
+                    .collect(Collectors.toSet()));
+
+            insert(chunk, candidates, results, activeCustomerIds, state);
+        }
+
+        for (FeeConfigImportResult result : results) {
+            state.count(result);
+        }
+        return Arrays.asList(results);
+    }
+
+    private void insert(List<FeeConfigImportReader.Row> chunk, List<Integer> candidates,
+                        FeeConfigImportResult[] results, Set<Long> activeCustomerIds, ImportState state) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                List<Integer> created = transactionTemplate.execute(status ->
+                        checkAndInsert(chunk, candidates, results, activeCustomerIds, state.activeFeeTypes));
+                created.forEach(i -> state.touchedCustomers.add(chunk.get(i).request().getCustomerId()));
+                return;
+            } catch (DataIntegrityViolationException e) {
+                if (!FeeConfigIntervalIndex.isOverlapViolation(e)) {
+                    throw e;
+                }
+                if (attempt >= INSERT_ATTEMPTS) {
+                    candidates.forEach(i -> results[i] = rejected(chunk.get(i),
+                            "Fee config overlaps with another config for this customer"));
+                    return;
+                }
+                log.warn("Import chunk overlapped a concurrent fee config write, re-checking {} rows", candidates.size());
+            }
+        }
+    }
+
+    /**
+     * Resolve every candidate row to CREATED or REJECTED and batch insert the created ones
+     * @return positions of the created rows in the chunk
+     */
+    private List<Integer> checkAndInsert(List<FeeConfigImportReader.Row> chunk, List<Integer> candidates,
+                                         FeeConfigImportResult[] results, Set<Long> activeCustomerIds,
+                                         Map<Long, Boolean> activeFeeTypes) {
+        Set<Long> customerIds = candidates.stream()
+                .map(i -> chunk.get(i).request().getCustomerId())
+                .collect(Collectors.toSet());
+        Map<Long, FeeConfigIntervalIndex> indexes = customerFeeConfigRepository
+                .findByCustomerIdInAndDeletedAtIsNull(customerIds).stream()
+                .collect(Collectors.groupingBy(CustomerFeeConfig::getCustomerId,
+                        Collectors.collectingAndThen(Collectors.toList(),
+                                configs -> FeeConfigIntervalIndex.of(configs, null))));
+        List<Long> ids = jdbcTemplate.queryForList(NEXT_IDS_SQL, Long.class, candidates.size());
+
+        List<Integer> created = new ArrayList<>();
+        List<NewConfig> inserts = new ArrayList<>();
+        for (int k = 0; k < candidates.size(); k++) {
+            int i = candidates.get(k);
+            FeeConfigImportReader.Row row = chunk.get(i);
+            CreateFeeConfigRequest request = row.request();
+
+            if (!activeCustomerIds.contains(request.getCustomerId())) {
+                results[i] = rejected(row, "Customer not found with id: " + request.getCustomerId());
+                continue;
+            }
+            if (!Boolean.TRUE.equals(activeFeeTypes.get(request.getFeeTypeId()))) {
+                results[i] = rejected(row, "Fee type not found or inactive with id: " + request.getFeeTypeId());
+                continue;
+            }
+            FeeConfigIntervalIndex index = indexes.computeIfAbsent(request.getCustomerId(), id -> new FeeConfigIntervalIndex());
+            Long overlapId = index.findOverlap(request.getEffectiveFrom(), request.getEffectiveTo()).orElse(null);
+            if (overlapId != null) {
+                results[i] = rejected(row, String.format(
+                        "Fee config overlaps with existing config (id: %d) for this customer", overlapId));
+                continue;
+            }
+            String params;
+            try {
+                params = request.getCalculationParams() != null
+                        ? objectMapper.writeValueAsString(request.getCalculationParams())
+                        : null;
+            } catch (JsonProcessingException e) {
+                results[i] = rejected(row, "Invalid calculation_params: " + e.getOriginalMessage());
+                continue;
+            }
+
+            Long id = ids.get(k);
+            index.add(id, request.getEffectiveFrom(), request.getEffectiveTo());
+            inserts.add(new NewConfig(id, request, params));
+            created.add(i);
+            results[i] = FeeConfigImportResult.builder()
+                    .status("CREATED")
+                    .line(row.lineNumber())
+                    .customerId(request.getCustomerId())
+                    .configId(id)
+                    .build();
+        }
+
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_CONFIG_SQL, inserts, inserts.size(), (ps, insert) -> {
+                CreateFeeConfigRequest request = insert.request();
+                ps.setLong(1, insert.id());
+                ps.setLong(2, request.getCustomerId());
+                ps.setLong(3, request.getFeeTypeId());
+                ps.setBigDecimal(4, request.getMonthlyFeeAmount());
+                ps.setString(5, request.getCurrency());
+                ps.setDate(6, Date.valueOf(request.getEffectiveFrom()));
+                ps.setDate(7, request.getEffectiveTo() != null ? Date.valueOf(request.getEffectiveTo()) : null);
+                ps.setString(8, insert.calculationParams());
+            });
+        }
+        return created;
+    }
+
+    private String validate(CreateFeeConfigRequest request) {
+        Set<ConstraintViolation<CreateFeeConfigRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (request.getEffectiveTo() != null && request.getEffectiveFrom().isAfter(request.getEffectiveTo())) {
+            return "Effective from date must be before effective to date";
+        }
+        return null;
+    }
+
+    private void invalidateCache(Set<Long> customerIds) {
+        if (customerIds.isEmpty()) {
+            return;
+        }
+        if (customerIds.size() > clearCacheThreshold) {
+            feeConfigCacheInvalidator.clearAll();
+        } else {
+            feeConfigCacheInvalidator.evictCustomers(customerIds);
+        }
+    }
+
+    private void write(Writer writer, List<FeeConfigImportResult> results) throws IOException {
+        for (FeeConfigImportResult result : results) {
+            writer.write(objectMapper.writeValueAsString(result));
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    private static FeeConfigImportResult rejected(FeeConfigImportReader.Row row, String error) {
+        return FeeConfigImportResult.builder()
+                .status("REJECTED")
+                .line(row.lineNumber())
+                .customerId(row.request() != null ? row.request().getCustomerId() : null)
+                .error(error)
+                .build();
+    }
+
+    private record NewConfig(Long id, CreateFeeConfigRequest request, String calculationParams) {
+    }
+
+    private class ImportState {
+        private long total;
+        private long created;
+        private long rejected;
+        private final Set<Long> touchedCustomers = new HashSet<>();
+        // Fee types are few, so they are looked up once per import
+        private final Map<Long, Boolean> activeFeeTypes = new HashMap<>();
+
+        void loadFeeTypes(Set<Long> feeTypeIds) {
+            Set<Long> missing = feeTypeIds.stream()
+                    .filter(id -> id != null && !activeFeeTypes.containsKey(id))
+                    .collect(Collectors.toSet());
+            if (missing.isEmpty()) {
+                return;
+            }
+            for (FeeType feeType : feeTypeRepository.findAllById(missing)) {
+                activeFeeTypes.put(feeType.getId(), Boolean.TRUE.equals(feeType.getIsActive()));
+            }
+            missing.forEach(id -> activeFeeTypes.putIfAbsent(id, false));
+        }
+
+        void count(FeeConfigImportResult result) {
+            total++;
+            if ("CREATED".equals(result.getStatus())) {
+                created++;
+                createdCounter.increment();
+            } else {
+                rejected++;
+                rejectedCounter.increment();
+            }
+        }
+    }
+}
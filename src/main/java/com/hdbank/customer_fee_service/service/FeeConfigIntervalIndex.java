@@ -0,0 +1,71 @@
+package com.hdbank.customer_fee_service.service;
+
+import com.hdbank.customer_fee_service.entity.CustomerFeeConfig;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Effective ranges of one customer's configs, keyed by effectiveFrom
+ * The ranges never overlap (ex_customer_fee_config_no_overlap), so their ends grow with their starts:
+ * a new range [from, to] overlaps something iff the range starting last on or before "to" ends on or after "from".
+ * That is one floor lookup, O(log n), instead of testing every pair.
+ */
+public class FeeConfigIntervalIndex {
+
+    private static final String EXCLUSION_VIOLATION = "23P01";
+
+    private final TreeMap<LocalDate, Range> ranges = new TreeMap<>();
+
+    /**
+     * Index of the given configs, leaving out excludeConfigId (the config being updated) when not null
+     */
+    public static FeeConfigIntervalIndex of(Collection<CustomerFeeConfig> configs, Long excludeConfigId) {
+        FeeConfigIntervalIndex index = new FeeConfigIntervalIndex();
+        for (CustomerFeeConfig config : configs) {
+            if (config.getDeletedAt() == null && !config.getId().equals(excludeConfigId)) {
+                index.add(config.getId(), config.getEffectiveFrom(), config.getEffectiveTo());
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @return id of a config overlapping [from, to] (inclusive, null to = open ended), if any
+     */
+    public Optional<Long> findOverlap(LocalDate from, LocalDate to) {
+        Map.Entry<LocalDate, Range> floor = ranges.floorEntry(to != null ? to : LocalDate.MAX);
+        if (floor == null) {
+            return Optional.empty();
+        }
+        Range range = floor.getValue();
+        boolean overlaps = range.to() == null || !range.to().isBefore(from);
+        return overlaps ? Optional.of(range.configId()) : Optional.empty();
+    }
+
+    /**
+     * Add a range that was checked with findOverlap (configId may be null before it is saved)
+     */
+    public void add(Long configId, LocalDate from, LocalDate to) {
+        ranges.put(from, new Range(configId, to));
+    }
+
+    /**
+     * Whether a failed write was rejected by ex_customer_fee_config_no_overlap (exclusion violation, SQLSTATE 23P01)
+     */
+    public static boolean isOverlapViolation(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && EXCLUSION_VIOLATION.equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record Range(Long configId, LocalDate to) {
+    }
+}
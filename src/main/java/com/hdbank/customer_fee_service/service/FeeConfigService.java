@@ -1,5 +1,6 @@
 package com.hdbank.customer_fee_service.service;
 
+import com.hdbank.customer_fee_service.cache.FeeConfigCacheInvalidator;
 import com.hdbank.customer_fee_service.dto.request.CreateFeeConfigRequest;
 import com.hdbank.customer_fee_service.dto.request.FeePreviewRequest;
 import com.hdbank.customer_fee_service.dto.request.UpdateFeeConfigRequest;
@@ -16,8 +17,9 @@ import com.hdbank.customer_fee_service.repository.FeeTypeRepository;
 import com.hdbank.customer_fee_service.service.strategy.FeeCalculationContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,7 +28,6 @@ import java.time.Instant;
 import java.time.LocalDate;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -37,9 +38,10 @@ public class FeeConfigService {
     private final CustomerRepository customerRepository;
     private final FeeTypeRepository feeTypeRepository;
     private final FeeCalculationContext feeCalculationContext;
+    private final FeeConfigCacheInvalidator feeConfigCacheInvalidator;
+    private final FeeConfigTimelineService feeConfigTimelineService;
 
     @Transactional
-    @CacheEvict(value = "feeConfigs", allEntries = true)
     public FeeConfigResponse createFeeConfig(CreateFeeConfigRequest request) {
         log.info("Creating fee config for customerId: {}", request.getCustomerId());
 
@@ -70,12 +72,13 @@ public class FeeConfigService {
                 .calculationParams(request.getCalculationParams())
                 .build();
 
-        CustomerFeeConfig saved = customerFeeConfigRepository.save(config);
+        CustomerFeeConfig saved = saveChecked(config);
+        feeConfigCacheInvalidator.evict(saved.getCustomerId(), null);
         log.info("Created fee config with id: {}", saved.getId());
         return FeeConfigResponse.from(saved);
     }
 
-    @Cacheable(value = "feeConfigs", key = "#configId")
+    @Cacheable(value = "feeConfigs", key = "#configId", sync = true)
     public FeeConfigResponse getFeeConfigById(Long configId) {
         log.info("Getting fee config with id: {}", configId);
         CustomerFeeConfig config = customerFeeConfigRepository.findById(configId)
@@ -84,35 +87,30 @@ public class FeeConfigService {
         return FeeConfigResponse.from(config);
     }
 
-    @Cacheable(value = "feeConfigs", key = "'customerId: ' + #customerId + ':active'")
     public FeeConfigResponse getActiveFeeConfigByCustomerId(Long customerId){
-        log.info("Getting active fee config for customer id: {}", customerId);
-        customerRepository.findById(customerId)
-                .filter( c -> c.getDeletedAt() == null)
-                .orElseThrow(() -> new EntityNotFoundException("Customer not found with id: " + customerId));
-        LocalDate today = LocalDate.now();
-        CustomerFeeConfig config = customerFeeConfigRepository.findActiveConfigByCustomerIdAndDate(customerId,today)
+        return getFeeConfigByCustomerIdAndDate(customerId, LocalDate.now());
+    }
+
+    /**
+     * Config in effect for the customer on the given date, resolved from the cached timeline
+     */
+    public FeeConfigResponse getFeeConfigByCustomerIdAndDate(Long customerId, LocalDate date){
+        log.info("Getting fee config for customer id: {} on {}", customerId, date);
+        return feeConfigTimelineService.getTimeline(customerId)
+                .resolve(date)
                 .orElseThrow(() -> new EntityNotFoundException("No active fee config found for customer id: " + customerId));
-        return FeeConfigResponse.from(config);
     }
 
-    @Cacheable(value = "feeConfigs", key = "'customerId: ' + #customerId + ':all'")
     public List<FeeConfigResponse> getAllFeeConfigsByCustomerIdIncludeExpired(Long customerId) {
         log.info("Getting all fee configs for customer id: {} including expired", customerId);
-        customerRepository.findById(customerId)
-                .filter( c -> c.getDeletedAt() == null)
-                .orElseThrow(() -> new EntityNotFoundException("Customer not found with id: " + customerId));
-        List<CustomerFeeConfig> configs = customerFeeConfigRepository.findByCustomerIdAndDeletedAtIsNull(customerId);
+        List<FeeConfigResponse> configs = feeConfigTimelineService.getTimeline(customerId).getConfigs();
         if(configs.isEmpty()){
             throw new EntityNotFoundException("No fee configs found for customer id: " + customerId);
         }
-        return configs.stream()
-                .map(FeeConfigResponse::from)
-                .collect(Collectors.toList());
+        return configs;
     }
 
     @Transactional
-    @CacheEvict(value = "feeConfigs", allEntries = true)
     public FeeConfigResponse updateFeeConfig(Long id, UpdateFeeConfigRequest request){
         log.info("Updating fee config with id: {} ", id);
 
@@ -120,6 +118,19 @@ public class FeeConfigService {
                 .filter(c -> c.getDeletedAt() == null)
                 .orElseThrow(() -> new EntityNotFoundException("Fee config not found with id: " + id));
 
+        // Validate the new dates before touching the entity: the overlap query would otherwise auto-flush
+        // the change first, and an overlap would fail that flush on ex_customer_fee_config_no_overlap
+        LocalDate effectiveFrom = request.getEffectiveFrom() != null ? request.getEffectiveFrom() : config.getEffectiveFrom();
+        LocalDate effectiveTo = request.getEffectiveTo() != null ? request.getEffectiveTo() : config.getEffectiveTo();
+        if(effectiveTo != null && effectiveFrom.isAfter(effectiveTo)){
+            throw new ValidationException("Effective from date must be before effective to date");
+        }
+        checkOverlappingConfigs(
+                config.getCustomerId(),
+                effectiveFrom,
+                effectiveTo,
+                id);
+
         // Update fields if provided
         if(request.getMonthlyFeeAmount() != null) {
             config.setMonthlyFeeAmount(request.getMonthlyFeeAmount());
@@ -127,32 +138,19 @@ public class FeeConfigService {
         if(request.getCurrency() != null) {
             config.setCurrency(request.getCurrency());
         }
-        if(request.getEffectiveFrom() != null) {
-            config.setEffectiveFrom(request.getEffectiveFrom());
-        }
-        if(request.getEffectiveTo() != null) {
-            config.setEffectiveTo(request.getEffectiveTo());
-        }
+        config.setEffectiveFrom(effectiveFrom);
+        config.setEffectiveTo(effectiveTo);
         if(request.getCalculationParams() != null) {
             config.setCalculationParams(request.getCalculationParams());
         }
 
-        // Validate dates after all updates applied
-        if(config.getEffectiveTo() != null && config.getEffectiveFrom().isAfter(config.getEffectiveTo())){
-            throw new ValidationException("Effective from date must be before effective to date");
-        }
-        checkOverlappingConfigs(
-                config.getCustomerId(),
-                config.getEffectiveFrom(),
-                config.getEffectiveTo(),
-                id);
-        CustomerFeeConfig updated = customerFeeConfigRepository.save(config);
+        CustomerFeeConfig updated = saveChecked(config);
+        feeConfigCacheInvalidator.evict(updated.getCustomerId(), updated.getId());
         log.info("Updated fee config with id: {}", updated.getId());
         return FeeConfigResponse.from(updated);
     }
 
     @Transactional
-    @CacheEvict(value = "feeConfigs", allEntries = true)
     public void deleteFeeConfig(Long id) {
         log.info("Deleting fee config with id: {}", id);
 
@@ -164,6 +162,7 @@ public class FeeConfigService {
         config.setDeletedBy(0L); // System user
 
         customerFeeConfigRepository.save(config);
+        feeConfigCacheInvalidator.evict(config.getCustomerId(), id);
         log.info("Deleted fee config with id: {}", id);
     }
 
@@ -180,16 +179,13 @@ public class FeeConfigService {
                 .findById(config.getFeeTypeId())
                 .orElseThrow(() -> new EntityNotFoundException("Fee type not found"));
 
-        // merge params: use request param if provide or otherwise use use config params
-        Map<String, Object> calculationParams = request.getCalculationParams() != null
-                ? request.getCalculationParams()
-                : config.getCalculationParams();
-
-        BigDecimal calculationFee = feeCalculationContext.calculateFee(
-                feeType.getCalculationType(),
-                config.getMonthlyFeeAmount(),
-                calculationParams
-        );
+        // merge params: use request param if provide (compiled ad hoc) or otherwise use the cached plan of the config
+        BigDecimal calculationFee = request.getCalculationParams() != null
+                ? feeCalculationContext.calculateFee(
+                        feeType.getCalculationType(),
+                        config.getMonthlyFeeAmount(),
+                        request.getCalculationParams())
+                : feeCalculationContext.calculateFee(feeType.getCalculationType(), config);
 
         return FeePreviewResponse.builder()
                 .customerId(request.getCustomerId())
@@ -199,52 +195,49 @@ public class FeeConfigService {
                 .monthlyFeeAmount(config.getMonthlyFeeAmount())
                 .calculatedFee(calculationFee)
                 .currency(config.getCurrency())
-                .calculationParams(calculationParams)
+                .calculationParams(request.getCalculationParams() != null
+                        ? request.getCalculationParams()
+                        : config.getCalculationParams())
                 .build();
     }
 
     /**
      * Checking overlapping configs
-     * Ensure customer only has 1 active config at a time
+     * Ensure customer only has 1 active config at a time: existing configs never overlap, so only the one
+     * starting last on or before effectiveTo can overlap [effectiveFrom, effectiveTo] (single row lookup)
+     * Concurrent writers are caught by ex_customer_fee_config_no_overlap (see saveChecked)
      */
     private void checkOverlappingConfigs(
             Long customerId,
             LocalDate effectiveFrom,
             LocalDate effectiveTo,
             Long excludeConfigId) {
-        List<CustomerFeeConfig> existingConfigs = customerFeeConfigRepository.findByCustomerIdAndDeletedAtIsNull(customerId);
-
-        for (CustomerFeeConfig existing : existingConfigs) {
-            // Skip nếu đang check chính config này (khi update) -> nếu không sẽ luôn overlap với chính nó
-            if (existing.getId().equals(excludeConfigId)) {
-                continue;
-            }
-
-            LocalDate existingFrom = existing.getEffectiveFrom();
-            LocalDate existingTo = existing.getEffectiveTo();
-
-            boolean hasOverlap = isDateRangeOverlap(
-                    effectiveFrom, effectiveTo, // new config range
-                    existingFrom, existingTo); // existing config range
+        customerFeeConfigRepository.findLatestStartingOnOrBefore(
+                        customerId,
+                        effectiveTo,
+                        excludeConfigId, // Skip config này khi update -> nếu không sẽ luôn overlap với chính nó
+                        Limit.of(1))
+                .stream()
+                .filter(existing -> existing.getEffectiveTo() == null || !existing.getEffectiveTo().isBefore(effectiveFrom))
+                .findFirst()
+                .ifPresent(existing -> {
+                    throw new ValidationException(
+                            String.format("Fee config overlaps with existing config (id: %d) for this customer", existing.getId())
+                    );
+                });
+    }
 
-            if (hasOverlap) {
-                throw new ValidationException(
-                        String.format("Fee config overlaps with existing config (id: %d) for this customer", existing.getId())
-                );
+    /**
+     * Save and flush so an overlap committed meanwhile by another writer fails here as a validation error
+     */
+    private CustomerFeeConfig saveChecked(CustomerFeeConfig config) {
+        try {
+            return customerFeeConfigRepository.saveAndFlush(config);
+        } catch (DataIntegrityViolationException e) {
+            if (FeeConfigIntervalIndex.isOverlapViolation(e)) {
+                throw new ValidationException("Fee config overlaps with another config for this customer");
             }
+            throw e;
         }
     }
-
-    private boolean isDateRangeOverlap(
-            LocalDate from1,
-            LocalDate to1,
-            LocalDate from2,
-            LocalDate to2) {
-
-        LocalDate end1 = (to1 != null) ? to1 : LocalDate.MAX;
-        LocalDate end2 = (to2 != null) ? to2 : LocalDate.MAX;
-
-        // Overlap nếu: start1 <= end2 AND start2 <= end1
-        return !from1.isAfter(end2) && !from2.isAfter(end1);
-    }
 }
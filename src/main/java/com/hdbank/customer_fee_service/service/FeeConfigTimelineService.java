@@ -0,0 +1,36 @@
+package com.hdbank.customer_fee_service.service;
+
+import com.hdbank.customer_fee_service.cache.FeeConfigTimeline;
+import com.hdbank.customer_fee_service.dto.response.FeeConfigResponse;
+import com.hdbank.customer_fee_service.exception.EntityNotFoundException;
+import com.hdbank.customer_fee_service.repository.CustomerFeeConfigRepository;
+import com.hdbank.customer_fee_service.repository.CustomerRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+/**
+ * Loads the per-customer config timeline behind FeeConfigService's customer lookups
+ * A separate bean so the @Cacheable proxy applies when FeeConfigService calls it
+ * Evicted with the customer's other feeConfigs keys by FeeConfigCacheInvalidator
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FeeConfigTimelineService {
+
+    private final CustomerFeeConfigRepository customerFeeConfigRepository;
+    private final CustomerRepository customerRepository;
+
+    @Cacheable(value = "feeConfigs", key = "'customerId:' + #customerId + ':timeline'", sync = true)
+    public FeeConfigTimeline getTimeline(Long customerId) {
+        log.info("Loading fee config timeline for customer id: {}", customerId);
+        customerRepository.findById(customerId)
+                .filter(c -> c.getDeletedAt() == null)
+                .orElseThrow(() -> new EntityNotFoundException("Customer not found with id: " + customerId));
+        return FeeConfigTimeline.of(customerFeeConfigRepository.findByCustomerIdAndDeletedAtIsNull(customerId).stream()
+                .map(FeeConfigResponse::from)
+                .toList());
+    }
+}
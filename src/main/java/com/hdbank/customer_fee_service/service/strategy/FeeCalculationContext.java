@@ -1,7 +1,11 @@
 package com.hdbank.customer_fee_service.service.strategy;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hdbank.customer_fee_service.entity.CustomerFeeConfig;
 import com.hdbank.customer_fee_service.exception.BusinessException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
@@ -12,6 +16,8 @@ import java.util.Map;
 /**
  * Context class that manages fee calculation strategies
  * Implements Strategy Pattern
+ * Calculation params of a saved config are compiled once into a FeePlan, cached by (config id, version)
+ * Per-calculation logs are DEBUG only, callers log one summary per batch
  */
 @Component
 @Slf4j
@@ -19,14 +25,24 @@ public class FeeCalculationContext {
 
     private final Map<String, FeeCalculationStrategy> strategies = new HashMap<>();
 
+    /**
+     * Compiled plans of saved configs
+     * Updating a config bumps its version, so a stale plan is never hit again and just ages out of the cache
+     */
+    private final Cache<PlanKey, FeePlan> planCache;
+
     /**
      * Auto inject all strategies implementations
      */
-    public FeeCalculationContext (List<FeeCalculationStrategy> strategyList){
+    public FeeCalculationContext (List<FeeCalculationStrategy> strategyList,
+                                  @Value("${fee.calculation.plan-cache.max-size:10000}") long planCacheMaxSize){
         for( FeeCalculationStrategy strategy : strategyList){
             strategies.put(strategy.getCalculationType(), strategy);
             log.info("Registered FeeCalculationStrategy: {}", strategy.getCalculationType());
         }
+        this.planCache = Caffeine.newBuilder()
+                .maximumSize(planCacheMaxSize)
+                .build();
     }
 
     /**
@@ -37,15 +53,24 @@ public class FeeCalculationContext {
             BigDecimal monthlyFeeAmount,
             Map<String, Object> calculationParams
     ) {
-        log.info("Calculating fee using strategy: {}", calculationType);
-        FeeCalculationStrategy strategy = strategies.get(calculationType);
-        if(strategy == null) {
-            throw new BusinessException("INVALID_CALCULATION_TYPE", "No strategy found for calculation type: " + calculationType);
+        BigDecimal fee = compile(calculationType, calculationParams).calculateFee(monthlyFeeAmount);
+        log.debug("Calculated fee: {} for type {}", fee, calculationType);
+        return fee;
+    }
+
+    /**
+     * Calculate fee of a saved config, reusing the compiled plan of (config id, version)
+     */
+    public BigDecimal calculateFee(String calculationType, CustomerFeeConfig config) {
+        if (config.getId() == null) {
+            // Not persisted yet, nothing stable to cache on
+            return calculateFee(calculationType, config.getMonthlyFeeAmount(), config.getCalculationParams());
         }
 
-        strategy.validateParams(calculationParams);
-        BigDecimal fee = strategy.calculateFee(monthlyFeeAmount, calculationParams);
-        log.info("Calculated fee: {} for type {}", fee, calculationType);
+        PlanKey key = new PlanKey(config.getId(), config.getVersion(), calculationType);
+        FeePlan plan = planCache.get(key, k -> compile(calculationType, config.getCalculationParams()));
+        BigDecimal fee = plan.calculateFee(config.getMonthlyFeeAmount());
+        log.debug("Calculated fee: {} for type {}", fee, calculationType);
         return fee;
     }
 
@@ -55,4 +80,18 @@ public class FeeCalculationContext {
     public boolean isCalculationTypeSupported(String calculationType) {
         return strategies.containsKey(calculationType);
     }
+
+    private FeePlan compile(String calculationType, Map<String, Object> calculationParams) {
+        FeeCalculationStrategy strategy = strategies.get(calculationType);
+        if(strategy == null) {
+            throw new BusinessException("INVALID_CALCULATION_TYPE", "No strategy found for calculation type: " + calculationType);
+        }
+
+        Map<String, Object> params = calculationParams != null ? calculationParams : new HashMap<>();
+        strategy.validateParams(params);
+        return strategy.compile(params);
+    }
+
+    private record PlanKey(Long configId, Long version, String calculationType) {
+    }
 }
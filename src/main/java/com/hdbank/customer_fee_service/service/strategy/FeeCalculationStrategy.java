@@ -11,7 +11,17 @@ public interface FeeCalculationStrategy {
      * @param calculationParams
      * @return calculate fee amount as BigDecimal
      */
-    BigDecimal calculateFee(BigDecimal monthlyFeeAmount, Map<String, Object> calculationParams);
+    default BigDecimal calculateFee(BigDecimal monthlyFeeAmount, Map<String, Object> calculationParams) {
+        return compile(calculationParams).calculateFee(monthlyFeeAmount);
+    }
+
+    /**
+     * Parse the calculation parameters into an immutable fee plan.
+     * Parameters should be validated with validateParams first.
+     * @param calculationParams
+     * @return compiled fee plan
+     */
+    FeePlan compile(Map<String, Object> calculationParams);
 
     /**
      * Get the calculation type associated with this strategy.
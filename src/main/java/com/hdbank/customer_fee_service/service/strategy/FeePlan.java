@@ -0,0 +1,19 @@
+package com.hdbank.customer_fee_service.service.strategy;
+
+import java.math.BigDecimal;
+
+/**
+ * Compiled form of a fee config's calculation params
+ * Params are parsed and validated once by FeeCalculationStrategy#compile, the plan itself is immutable
+ * so it can be cached and shared across jobs and previews
+ */
+@FunctionalInterface
+public interface FeePlan {
+
+    /**
+     * Calculate fee for this plan.
+     * @param monthlyFeeAmount monthly fee amount of the config (fallback amount for some strategies)
+     * @return calculate fee amount as BigDecimal
+     */
+    BigDecimal calculateFee(BigDecimal monthlyFeeAmount);
+}
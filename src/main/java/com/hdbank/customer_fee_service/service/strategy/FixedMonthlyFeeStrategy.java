@@ -1,7 +1,6 @@
 package com.hdbank.customer_fee_service.service.strategy;
 
 import com.hdbank.customer_fee_service.entity.CalculationType;
-import com.hdbank.customer_fee_service.entity.FeeJobStatus;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
@@ -12,10 +11,15 @@ import java.util.Map;
 @Slf4j
 public class FixedMonthlyFeeStrategy implements FeeCalculationStrategy{
 
-    @Override
-    public BigDecimal calculateFee(BigDecimal monthlyFeeAmount, Map<String, Object> calculationParams) {
-        log.info("Calculating fixed monthly fee: {}", monthlyFeeAmount);
+    // Fixed fee has no params, every config shares the same plan
+    private static final FeePlan FIXED_PLAN = monthlyFeeAmount -> {
+        log.debug("Calculating fixed monthly fee: {}", monthlyFeeAmount);
         return monthlyFeeAmount;
+    };
+
+    @Override
+    public FeePlan compile(Map<String, Object> calculationParams) {
+        return FIXED_PLAN;
     }
 
     @Override
@@ -26,6 +30,6 @@ public class FixedMonthlyFeeStrategy implements FeeCalculationStrategy{
     @Override
     public void validateParams(Map<String, Object> calculationParams) {
         // Because it is a fixed monthly fee, no additional parameters are required
-        log.info("No additional parameters required for FIXED calculation type");
+        log.debug("No additional parameters required for FIXED calculation type");
     }
 }
@@ -28,15 +28,13 @@ public class PercentageBalanceFeeStrategy implements FeeCalculationStrategy{
     private static final RoundingMode ROUNDING_MODE = RoundingMode.HALF_UP;
 
     @Override
-    public BigDecimal calculateFee(BigDecimal monthlyFeeAmount, Map<String, Object> calculationParams) {
-        log.info("Calculating percentage fee with params: {}", calculationParams);
-        BigDecimal balance = getBalance(calculationParams);
-        BigDecimal percentage = getPercentage(calculationParams);
-        BigDecimal rawFee = balance.multiply(percentage).setScale(SCALE,ROUNDING_MODE);
-        log.info("Raw fee calculated: {} (balance: {} * percentage: {})", rawFee, balance, percentage);
-        BigDecimal finalFee = applyMinMaxCaps(rawFee, calculationParams);
-        log.info("Final fee after applying min/max caps: {}", finalFee);
-        return finalFee;
+    public FeePlan compile(Map<String, Object> calculationParams) {
+        return new PercentagePlan(
+                getBalance(calculationParams),
+                getPercentage(calculationParams),
+                getOptionalAmount(calculationParams, "min_fee"),
+                getOptionalAmount(calculationParams, "max_fee")
+        );
     }
 
     @Override
@@ -84,27 +82,44 @@ public class PercentageBalanceFeeStrategy implements FeeCalculationStrategy{
         throw new ValidationException("Invalid percentage value");
     }
 
-    private BigDecimal applyMinMaxCaps(BigDecimal fee, Map<String, Object> params) {
-        BigDecimal result = fee;
+    private BigDecimal getOptionalAmount(Map<String, Object> params, String key) {
+        Object value = params.get(key);
+        return value != null ? new BigDecimal(value.toString()) : null;
+    }
 
-        // Apply minimum cap
-        if (params.containsKey("min_fee")) {
-            BigDecimal minFee = new BigDecimal(params.get("min_fee").toString());
-            if (result.compareTo(minFee) < 0) {
-                log.info("Applying min cap: {} -> {}", result, minFee);
-                result = minFee;
+    /**
+     * Pre-parsed percentage params, min/max are null when not configured
+     */
+    private record PercentagePlan(BigDecimal balance, BigDecimal percentage,
+                                  BigDecimal minFee, BigDecimal maxFee) implements FeePlan {
+
+        @Override
+        public BigDecimal calculateFee(BigDecimal monthlyFeeAmount) {
+            BigDecimal rawFee = balance.multiply(percentage).setScale(SCALE, ROUNDING_MODE);
+            if (log.isDebugEnabled()) {
+                log.debug("Raw fee calculated: {} (balance: {} * percentage: {})", rawFee, balance, percentage);
             }
+            BigDecimal finalFee = applyMinMaxCaps(rawFee);
+            log.debug("Final fee after applying min/max caps: {}", finalFee);
+            return finalFee;
         }
 
-        // Apply maximum cap
-        if (params.containsKey("max_fee")) {
-            BigDecimal maxFee = new BigDecimal(params.get("max_fee").toString());
-            if (result.compareTo(maxFee) > 0) {
-                log.info("Applying max cap: {} -> {}", result, maxFee);
+        private BigDecimal applyMinMaxCaps(BigDecimal fee) {
+            BigDecimal result = fee;
+
+            // Apply minimum cap
+            if (minFee != null && result.compareTo(minFee) < 0) {
+                log.debug("Applying min cap: {} -> {}", result, minFee);
+                result = minFee;
+            }
+
+            // Apply maximum cap
+            if (maxFee != null && result.compareTo(maxFee) > 0) {
+                log.debug("Applying max cap: {} -> {}", result, maxFee);
                 result = maxFee;
             }
-        }
 
-        return result;
+            return result;
+        }
     }
 }
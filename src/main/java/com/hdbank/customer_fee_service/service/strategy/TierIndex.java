@@ -0,0 +1,107 @@
+package com.hdbank.customer_fee_service.service.strategy;
+
+import com.hdbank.customer_fee_service.service.strategy.TieredBalanceFeeStrategy.Tier;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Binary-search index over the bounds of a tier table
+ * Bounds are stored as longs scaled to one common scale (e.g. scale 2: 1000.50 -> 100050),
+ * so a lookup is O(log n) primitive comparisons instead of a BigDecimal scan
+ * Only built for tiers sorted by "from" that do not overlap, see build()
+ */
+final class TierIndex {
+
+    // Amounts are VND / percentages, more decimals than this are not worth indexing
+    private static final int MAX_SCALE = 6;
+    private static final long NO_UPPER_BOUND = Long.MAX_VALUE;
+
+    private final int scale;
+    private final long[] lowerBounds;
+    private final long[] upperBounds;
+
+    private TierIndex(int scale, long[] lowerBounds, long[] upperBounds) {
+        this.scale = scale;
+        this.lowerBounds = lowerBounds;
+        this.upperBounds = upperBounds;
+    }
+
+    /**
+     * Build the index, the balance is included when picking the common scale so it can always be scaled exactly
+     * @return null if the tiers are not strictly sorted by "from", overlap, leave a non-last tier open-ended
+     * or do not fit in scaled longs - the caller must then fall back to a linear scan
+     */
+    static TierIndex build(List<Tier> tiers, BigDecimal balance) {
+        int scale = scaleOf(balance);
+        for (Tier tier : tiers) {
+            scale = Math.max(scale, scaleOf(tier.from()));
+            if (tier.to() != null) {
+                scale = Math.max(scale, scaleOf(tier.to()));
+            }
+        }
+        if (scale > MAX_SCALE) {
+            return null;
+        }
+
+        int size = tiers.size();
+        long[] lowerBounds = new long[size];
+        long[] upperBounds = new long[size];
+        try {
+            toScaled(balance, scale);
+            for (int i = 0; i < size; i++) {
+                Tier tier = tiers.get(i);
+                lowerBounds[i] = toScaled(tier.from(), scale);
+                upperBounds[i] = tier.to() != null ? toScaled(tier.to(), scale) : NO_UPPER_BOUND;
+            }
+        } catch (ArithmeticException e) {
+            // Does not fit in a long
+            return null;
+        }
+
+        for (int i = 1; i < size; i++) {
+            boolean sorted = lowerBounds[i] > lowerBounds[i - 1];
+            boolean disjoint = tiers.get(i - 1).to() != null && upperBounds[i - 1] < lowerBounds[i];
+            if (!sorted || !disjoint) {
+                return null;
+            }
+        }
+        return new TierIndex(scale, lowerBounds, upperBounds);
+    }
+
+    /**
+     * Scale a value (the balance) to the scale of this index
+     */
+    long toScaled(BigDecimal value) {
+        return toScaled(value, scale);
+    }
+
+    /**
+     * @return position of the tier containing the scaled balance, -1 if no tier matches
+     */
+    int find(long scaledBalance) {
+        // Last tier with from <= balance
+        int low = 0;
+        int high = lowerBounds.length - 1;
+        int candidate = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (lowerBounds[mid] <= scaledBalance) {
+                candidate = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        // Tiers are disjoint so no earlier tier can contain the balance either
+        return candidate >= 0 && scaledBalance <= upperBounds[candidate] ? candidate : -1;
+    }
+
+    private static int scaleOf(BigDecimal value) {
+        return Math.max(0, value.stripTrailingZeros().scale());
+    }
+
+    private static long toScaled(BigDecimal value, int scale) {
+        return value.setScale(scale).unscaledValue().longValueExact();
+    }
+}
@@ -30,28 +30,20 @@ public class TieredBalanceFeeStrategy implements FeeCalculationStrategy{
     private static final int GREATER_THAN = 1;
 
     @Override
-    public BigDecimal calculateFee(BigDecimal monthlyFeeAmount, Map<String, Object> calculationParams) {
-        log.info("Calculating tiered transaction fee with params: {}", calculationParams);
+    public FeePlan compile(Map<String, Object> calculationParams) {
         BigDecimal balance = getBalance(calculationParams);
-        List<Map<String,Object>> tiers = getTiers(calculationParams);
-        // Find matching tier
-        for( Map<String, Object> tier : tiers){
-            BigDecimal from = new BigDecimal(tier.get("from").toString());
-            Object toObj = tier.get("to");
-            BigDecimal to = toObj != null ? new BigDecimal(toObj.toString()) : null;
-
-            // Check if balances falls in this tier
-            boolean matchesFrom = balance.compareTo(from) >= EQUAL_TO;
-            boolean matchesTo = (to == null) || (balance.compareTo(to) <= EQUAL_TO);
-
-            if(matchesFrom && matchesTo){
-                BigDecimal fee = new BigDecimal(tier.get("fee").toString());
-                log.info("Balance {} falls in tier (from: {}, to: {}), applying fee: {}", balance, from, to, fee);
-                return fee;
-            }
-        }
-        log.warn("No matching tier found, defaulting to monthly fee amount: {}", monthlyFeeAmount);
-        return monthlyFeeAmount;
+        List<Tier> tiers = getTiers(calculationParams).stream()
+                .map(tier -> {
+                    Object toObj = tier.get("to");
+                    return new Tier(
+                            new BigDecimal(tier.get("from").toString()),
+                            toObj != null ? new BigDecimal(toObj.toString()) : null,
+                            new BigDecimal(tier.get("fee").toString()));
+                })
+                .toList();
+        // null when tiers are unsorted, overlapping or too large for scaled longs -> linear scan
+        TierIndex index = TierIndex.build(tiers, balance);
+        return new TieredPlan(balance, tiers, index, index != null ? index.toScaled(balance) : 0L);
     }
 
     @Override
@@ -105,4 +97,52 @@ public class TieredBalanceFeeStrategy implements FeeCalculationStrategy{
     private List<Map<String,Object>> getTiers(Map<String, Object> params) {
         return (List<Map<String, Object>>) params.get("tiers");
     }
+
+    /**
+     * Pre-parsed tier bounds, "to" = null means no upper bound
+     */
+    record Tier(BigDecimal from, BigDecimal to, BigDecimal fee) {
+    }
+
+    /**
+     * Tiers are kept in configured order, the first matching tier wins
+     * When the tiers could be indexed the match is found by binary search, which gives the same tier
+     * because sorted non-overlapping tiers have at most one match
+     */
+    private record TieredPlan(BigDecimal balance, List<Tier> tiers,
+                              TierIndex index, long scaledBalance) implements FeePlan {
+
+        @Override
+        public BigDecimal calculateFee(BigDecimal monthlyFeeAmount) {
+            Tier tier = index != null ? findIndexed() : findLinear();
+            if (tier != null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Balance {} falls in tier (from: {}, to: {}), applying fee: {}",
+                            balance, tier.from(), tier.to(), tier.fee());
+                }
+                return tier.fee();
+            }
+            log.warn("No matching tier found, defaulting to monthly fee amount: {}", monthlyFeeAmount);
+            return monthlyFeeAmount;
+        }
+
+        private Tier findIndexed() {
+            int position = index.find(scaledBalance);
+            return position >= 0 ? tiers.get(position) : null;
+        }
+
+        private Tier findLinear() {
+            // Find matching tier
+            for (Tier tier : tiers) {
+                // Check if balances falls in this tier
+                boolean matchesFrom = balance.compareTo(tier.from()) >= EQUAL_TO;
+                boolean matchesTo = (tier.to() == null) || (balance.compareTo(tier.to()) <= EQUAL_TO);
+
+                if (matchesFrom && matchesTo) {
+                    return tier;
+                }
+            }
+            return null;
+        }
+    }
 }
@@ -0,0 +1,25 @@
+-- Attempt counter kept on the job, incremented when the job is claimed/started
+-- fee_charge_attempt.attempt_no is taken from this counter instead of counting previous attempts
+ALTER TABLE customer_fee_job
+    ADD COLUMN attempt_count INTEGER NOT NULL DEFAULT 0;
+
+-- The old numbering (count of previous attempts + 1) could give concurrent retries the same attempt_no:
+-- renumber the attempts of those jobs in creation order, so the unique index below can be built
+UPDATE fee_charge_attempt a
+SET attempt_no = r.rn
+FROM (
+    SELECT id, ROW_NUMBER() OVER (PARTITION BY job_id ORDER BY created_at, id) AS rn
+    FROM fee_charge_attempt
+    WHERE job_id IN (
+        SELECT job_id FROM fee_charge_attempt GROUP BY job_id, attempt_no HAVING COUNT(*) > 1
+    )
+) r
+WHERE a.id = r.id AND a.attempt_no <> r.rn;
+
+UPDATE customer_fee_job j
+SET attempt_count = COALESCE((SELECT MAX(a.attempt_no) FROM fee_charge_attempt a WHERE a.job_id = j.id), 0);
+
+COMMENT ON COLUMN customer_fee_job.attempt_count IS 'Number of charge attempts started for this job';
+
+-- Guarantees unique attempt numbering per job under concurrent retries
+CREATE UNIQUE INDEX uq_charge_attempt_job_attempt_no ON fee_charge_attempt(job_id, attempt_no);
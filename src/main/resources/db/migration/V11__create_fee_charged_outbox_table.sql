@@ -0,0 +1,26 @@
+-- Transactional outbox: one row per FeeChargedEvent, written in the same transaction as the SUCCESS attempt
+-- FeeChargedOutboxRelay publishes unsent rows to payment.fee.charged.v1 and marks them sent
+-- Rows are claimed (next_attempt_at = now + claim-ttl) in a short transaction, then published without holding row locks
+CREATE TABLE fee_charged_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    event_id VARCHAR(36) NOT NULL UNIQUE,
+    event_type VARCHAR(50) NOT NULL DEFAULT 'FEE_CHARGED',
+    job_id BIGINT NOT NULL,
+    customer_id BIGINT NOT NULL,
+    fee_config_id BIGINT,
+    charged_amount NUMERIC(15,2) NOT NULL,
+    currency VARCHAR(3) NOT NULL,
+    billing_month VARCHAR(7) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    sent_at TIMESTAMP,
+    send_attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP
+);
+
+COMMENT ON COLUMN fee_charged_outbox.event_id IS 'Stable event id, re-sends keep it so consumers can deduplicate';
+COMMENT ON COLUMN fee_charged_outbox.sent_at IS 'Time the broker acknowledged the event, NULL = not published yet';
+COMMENT ON COLUMN fee_charged_outbox.next_attempt_at IS 'Row is not relayed before this time (claimed by a relay, or retry backoff), NULL = due now';
+
+-- Relay polls unsent rows by id, pruning deletes sent rows by sent_at
+CREATE INDEX idx_outbox_unsent_id ON fee_charged_outbox(id) WHERE sent_at IS NULL;
+CREATE INDEX idx_outbox_sent_at ON fee_charged_outbox(sent_at) WHERE sent_at IS NOT NULL;
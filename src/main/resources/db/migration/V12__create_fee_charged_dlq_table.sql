@@ -0,0 +1,31 @@
+-- FeeChargedEvents that exhausted every retry tier, stored by FeeChargedDLQConsumer for investigation and replay
+CREATE TABLE fee_charged_dlq (
+    id BIGSERIAL PRIMARY KEY,
+    event_id VARCHAR(64),
+    event_type VARCHAR(50),
+    event_time VARCHAR(40),
+    job_id BIGINT,
+    customer_id BIGINT,
+    fee_config_id BIGINT,
+    charged_amount NUMERIC(15,2),
+    currency VARCHAR(3),
+    billing_month VARCHAR(7),
+    retry_attempts INTEGER NOT NULL DEFAULT 0,
+    last_error VARCHAR(500),
+    source_topic VARCHAR(255) NOT NULL,
+    source_partition INTEGER NOT NULL,
+    source_offset BIGINT NOT NULL,
+    received_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    replayed_at TIMESTAMP,
+    replay_count INTEGER NOT NULL DEFAULT 0,
+    CONSTRAINT uk_dlq_source UNIQUE (source_topic, source_partition, source_offset)
+);
+
+COMMENT ON COLUMN fee_charged_dlq.event_id IS 'Event id of the DLQ record, NULL = missing (never replayed)';
+COMMENT ON COLUMN fee_charged_dlq.last_error IS 'fee-retry-error header of the last failed attempt';
+COMMENT ON CONSTRAINT uk_dlq_source ON fee_charged_dlq IS 'A redelivered DLQ record is stored only once';
+COMMENT ON COLUMN fee_charged_dlq.replayed_at IS 'Last time the event was re-published to payment.fee.charged.v1, NULL = never';
+
+-- Replay and investigation filter by billing month and/or customer
+CREATE INDEX idx_dlq_billing_month_customer ON fee_charged_dlq(billing_month, customer_id);
+CREATE INDEX idx_dlq_customer_id ON fee_charged_dlq(customer_id);
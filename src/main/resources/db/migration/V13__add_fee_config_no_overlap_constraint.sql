@@ -0,0 +1,14 @@
+-- A customer's non-deleted fee configs must not overlap in time, also with concurrent writers
+-- (FeeConfigService checks it first and maps a violation, SQLSTATE 23P01, to a validation error)
+-- Existing overlapping rows have to be fixed before this migration can run
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE customer_fee_config
+    ADD CONSTRAINT ex_customer_fee_config_no_overlap
+    EXCLUDE USING gist (
+        customer_id WITH =,
+        daterange(effective_from, effective_to, '[]') WITH &&
+    ) WHERE (deleted_at IS NULL);
+
+COMMENT ON CONSTRAINT ex_customer_fee_config_no_overlap ON customer_fee_config
+    IS 'Inclusive [effective_from, effective_to] ranges, NULL effective_to = open ended';
@@ -0,0 +1,11 @@
+-- Claim owner/time for jobs picked up by an executor (status NEW -> IN_PROGRESS)
+ALTER TABLE customer_fee_job
+    ADD COLUMN claimed_by VARCHAR(255),
+    ADD COLUMN claimed_at TIMESTAMP;
+
+COMMENT ON COLUMN customer_fee_job.claimed_by IS 'Executor node that claimed the job (FOR UPDATE SKIP LOCKED)';
+COMMENT ON COLUMN customer_fee_job.claimed_at IS 'Time the job was claimed, used to release stale claims';
+
+-- Claim query only scans NEW jobs ordered by id
+CREATE INDEX idx_fee_job_new_id ON customer_fee_job(id) WHERE status = 'NEW' AND deleted_at IS NULL;
+CREATE INDEX idx_fee_job_claimed_at ON customer_fee_job(claimed_at) WHERE status = 'IN_PROGRESS';
@@ -2,6 +2,7 @@ package com.hdbank.customer_fee_service;
 
 import com.hdbank.customer_fee_service.kafka.FeeChargedConsumer;
 import com.hdbank.customer_fee_service.kafka.FeeChargedDLQConsumer;
+import com.hdbank.customer_fee_service.kafka.FeeChargedEvent;
 import com.hdbank.customer_fee_service.kafka.FeeChargedProducer;
 import com.hdbank.customer_fee_service.kafka.FeeChargedRetryConsumer;
 import com.hdbank.customer_fee_service.scheduler.DistributedLockService;
@@ -16,9 +17,9 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 @SpringBootTest
 class CustomerFeeServiceApplicationTests {
 
-	// Mock Kafka beans - FIXED: Should be KafkaTemplate<String, String>
+	// Mock Kafka beans
 	@MockitoBean
-	private KafkaTemplate<String, String> kafkaTemplate;
+	private KafkaTemplate<String, FeeChargedEvent> kafkaTemplate;
 
 	@MockitoBean
 	private FeeChargedProducer feeChargedProducer;
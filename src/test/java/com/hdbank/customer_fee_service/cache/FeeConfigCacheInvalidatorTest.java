@@ -0,0 +1,92 @@
+package com.hdbank.customer_fee_service.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FeeConfigCacheInvalidatorTest {
+
+    @Mock
+    private ObjectProvider<CacheManager> cacheManagerProvider;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache cache;
+
+    private FeeConfigCacheInvalidator invalidator;
+
+    @BeforeEach
+    void setUp() {
+        invalidator = new FeeConfigCacheInvalidator(cacheManagerProvider);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void evictShouldOnlyTouchTheCustomerKeysAndTheConfigId() {
+        when(cacheManagerProvider.getIfAvailable()).thenReturn(cacheManager);
+        when(cacheManager.getCache("feeConfigs")).thenReturn(cache);
+
+        invalidator.evict(7L, 42L);
+
+        verify(cache).evict("customerId:7:timeline");
+        verify(cache).evict("42");
+        verify(cache, never()).clear();
+    }
+
+    @Test
+    void evictionInsideTransactionShouldWaitForCommit() {
+        when(cacheManagerProvider.getIfAvailable()).thenReturn(cacheManager);
+        when(cacheManager.getCache("feeConfigs")).thenReturn(cache);
+        TransactionSynchronizationManager.initSynchronization();
+
+        invalidator.evict(7L, 42L);
+        invalidator.evictCustomers(List.of(7L, 8L));
+        verifyNoInteractions(cache);
+
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+        verify(cache).evict("customerId:7:timeline");
+        verify(cache).evict("42");
+        verify(cache).evict("customerId:8:timeline");
+    }
+
+    @Test
+    void rolledBackTransactionShouldEvictNothing() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        invalidator.evict(7L, 42L);
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        verifyNoInteractions(cacheManagerProvider);
+    }
+
+    private static void completeTransaction(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+}
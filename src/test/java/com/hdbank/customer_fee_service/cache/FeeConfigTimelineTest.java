@@ -0,0 +1,56 @@
+package com.hdbank.customer_fee_service.cache;
+
+import com.hdbank.customer_fee_service.dto.response.FeeConfigResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FeeConfigTimelineTest {
+
+    // Unsorted on purpose: Jan-Mar, (gap in April), May-Jun, Jul onwards
+    private final FeeConfigTimeline timeline = FeeConfigTimeline.of(List.of(
+            config(3L, "2026-07-01", null),
+            config(1L, "2026-01-01", "2026-03-31"),
+            config(2L, "2026-05-01", "2026-06-30")
+    ));
+
+    @Test
+    void shouldKeepConfigsSortedByEffectiveFrom() {
+        assertEquals(List.of(1L, 2L, 3L), timeline.getConfigs().stream().map(FeeConfigResponse::getId).toList());
+    }
+
+    @Test
+    void shouldResolveTheConfigInEffectOnEachDate() {
+        assertEquals(1L, resolve("2026-01-01"));
+        assertEquals(1L, resolve("2026-03-31"));
+        assertEquals(2L, resolve("2026-05-01"));
+        assertEquals(2L, resolve("2026-06-30"));
+        assertEquals(3L, resolve("2026-07-01"));
+        assertEquals(3L, resolve("2030-12-31"));
+    }
+
+    @Test
+    void shouldResolveNothingOutsideTheIntervals() {
+        // Before the first config, and the day after an end date (midnight rollover)
+        assertTrue(timeline.resolve(LocalDate.parse("2025-12-31")).isEmpty());
+        assertTrue(timeline.resolve(LocalDate.parse("2026-04-01")).isEmpty());
+        assertTrue(FeeConfigTimeline.of(List.of()).resolve(LocalDate.parse("2026-01-01")).isEmpty());
+    }
+
+    private Long resolve(String date) {
+        return timeline.resolve(LocalDate.parse(date)).orElseThrow().getId();
+    }
+
+    private static FeeConfigResponse config(Long id, String from, String to) {
+        return FeeConfigResponse.builder()
+                .id(id)
+                .customerId(7L)
+                .effectiveFrom(LocalDate.parse(from))
+                .effectiveTo(to != null ? LocalDate.parse(to) : null)
+                .build();
+    }
+}
@@ -0,0 +1,266 @@
+package com.hdbank.customer_fee_service.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TwoTierCacheTest {
+
+    private static final String CHANNEL = "fee-cache-invalidation";
+
+    @Mock
+    private RedisCacheManager redisCacheManager;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private Cache remote;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private TwoTierCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new TwoTierCacheManager(redisCacheManager, redisTemplate, meterRegistry, CHANNEL, 100, Duration.ofMinutes(1),
+                Duration.ofMillis(500), Set.of("feeConfigs"), 1.0);
+        when(redisCacheManager.getCache("feeConfigs")).thenReturn(remote);
+        when(redisCacheManager.getCacheConfigurations()).thenReturn(Map.of("feeConfigs",
+                RedisCacheConfiguration.defaultCacheConfig().entryTtl(Duration.ofMinutes(30))));
+    }
+
+    @Test
+    void remoteHitShouldBeServedLocallyAfterwards() {
+        when(remote.get(42L)).thenReturn(new SimpleValueWrapper("config-42"));
+        Cache cache = cacheManager.getCache("feeConfigs");
+
+        assertEquals("config-42", cache.get(42L).get());
+        assertEquals("config-42", cache.get(42L).get());
+        // Same entry whether the key comes in as a Long or a String
+        assertEquals("config-42", cache.get("42").get());
+
+        verify(remote, times(1)).get(any());
+        assertEquals(2.0, gets("l1", "hit"));
+        assertEquals(1.0, gets("l1", "miss"));
+        assertEquals(1.0, gets("l2", "hit"));
+    }
+
+    @Test
+    void evictShouldDropBothTiersAndNotifyOtherNodes() {
+        when(remote.get(42L)).thenReturn(new SimpleValueWrapper("config-42")).thenReturn(null);
+        Cache cache = cacheManager.getCache("feeConfigs");
+        cache.get(42L);
+
+        cache.evict(42L);
+
+        assertNull(cache.get(42L));
+        verify(remote).evict(42L);
+        verify(redisTemplate).convertAndSend(CHANNEL, cacheManager.getNodeId() + "|E|feeConfigs|42");
+        assertEquals(1.0, gets("l2", "miss"));
+    }
+
+    @Test
+    void invalidationFromAnotherNodeShouldDropOnlyTheLocalEntry() {
+        when(remote.get("customerId:7:all")).thenReturn(new SimpleValueWrapper("configs-7"));
+        Cache cache = cacheManager.getCache("feeConfigs");
+        cache.get("customerId:7:all");
+
+        // Own messages are ignored
+        cacheManager.handleInvalidation(cacheManager.getNodeId() + "|E|feeConfigs|customerId:7:all");
+        cache.get("customerId:7:all");
+        verify(remote, times(1)).get("customerId:7:all");
+
+        cacheManager.handleInvalidation("other-node|E|feeConfigs|customerId:7:all");
+        cache.get("customerId:7:all");
+        verify(remote, times(2)).get("customerId:7:all");
+        verify(remote, times(0)).evict(any());
+    }
+
+    @Test
+    void groupEvictionShouldSendOneMessage() {
+        TwoTierCache cache = (TwoTierCache) cacheManager.getCache("feeConfigs");
+
+        cache.evictAll(List.of("customerId:7:active", "customerId:7:all", 42L));
+
+        verify(remote).evict("customerId:7:active");
+        verify(remote).evict("customerId:7:all");
+        verify(remote).evict(42L);
+        verify(redisTemplate).convertAndSend(CHANNEL,
+                cacheManager.getNodeId() + "|E|feeConfigs|customerId:7:active\ncustomerId:7:all\n42");
+    }
+
+    @Test
+    void groupEvictionShouldDeleteRedisKeysInOneCommand() {
+        RedisCache redisRemote = mock(RedisCache.class);
+        when(redisRemote.getCacheConfiguration()).thenReturn(RedisCacheConfiguration.defaultCacheConfig());
+        when(redisCacheManager.getCache("feeConfigs")).thenReturn(redisRemote);
+        TwoTierCache cache = (TwoTierCache) cacheManager.getCache("feeConfigs");
+
+        cache.evictAll(List.of("customerId:7:timeline", "customerId:8:timeline"));
+
+        verify(redisTemplate).delete(List.of("feeConfigs::customerId:7:timeline", "feeConfigs::customerId:8:timeline"));
+        verify(redisRemote, never()).evict(any());
+    }
+
+    @Test
+    void concurrentMissesOnOneNodeShouldLoadOnce() throws Exception {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        Cache cache = cacheManager.getCache("feeConfigs");
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        Callable<String> loader = () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "configs-7";
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(() -> cache.get("customerId:7:all", loader));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<String> second = executor.submit(() -> cache.get("customerId:7:all", loader));
+            while (coalesced("local") < 1.0) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertEquals("configs-7", first.get(5, TimeUnit.SECONDS));
+            assertEquals("configs-7", second.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void missWhileAnotherNodeLoadsShouldWaitForItsValue() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        when(remote.get("customerId:7:active"))
+                .thenReturn(null)
+                .thenReturn(new SimpleValueWrapper(new CacheEnvelope("config-7", 20, System.currentTimeMillis() + 60_000)));
+        Cache cache = cacheManager.getCache("feeConfigs");
+
+        String value = cache.get("customerId:7:active", () -> {
+            throw new AssertionError("must not load while another node holds the lock");
+        });
+
+        assertEquals("config-7", value);
+        assertEquals(1.0, coalesced("peer"));
+    }
+
+    @Test
+    void missShouldStopWaitingWhenThePeerReleasesTheLockWithoutAValue() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        // The peer's load failed: nothing stored and the lock is gone
+        when(redisTemplate.hasKey(anyString())).thenReturn(false);
+        Cache cache = cacheManager.getCache("feeConfigs");
+
+        long startedAt = System.nanoTime();
+        assertEquals("config-7", cache.get("customerId:7:active", () -> "config-7"));
+
+        // Loaded after one poll instead of waiting out the 500ms lock ttl
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt) < 400);
+        verify(remote).put(eq("customerId:7:active"), any(CacheEnvelope.class));
+    }
+
+    @Test
+    void subMillisecondLoadsShouldStillBeRefreshedAhead() {
+        long now = System.currentTimeMillis();
+
+        assertTrue(new CacheEnvelope("config-7", 0, now).refreshEarly(now, 1.0));
+    }
+
+    @Test
+    void entryCloseToExpiryShouldBeRefreshedAhead() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+        // Load took 100ms and the Redis entry expires now: XFetch always refreshes
+        when(remote.get("customerId:7:active"))
+                .thenReturn(new SimpleValueWrapper(new CacheEnvelope("old", 100, System.currentTimeMillis())));
+        Cache cache = cacheManager.getCache("feeConfigs");
+
+        assertEquals("new", cache.get("customerId:7:active", () -> "new"));
+
+        ArgumentCaptor<Object> stored = ArgumentCaptor.forClass(Object.class);
+        verify(remote).put(eq("customerId:7:active"), stored.capture());
+        CacheEnvelope envelope = (CacheEnvelope) stored.getValue();
+        assertEquals("new", envelope.getValue());
+        assertTrue(envelope.getExpiresAtMillis() > System.currentTimeMillis() + Duration.ofMinutes(29).toMillis());
+    }
+
+    @Test
+    void refreshAheadShouldKeepServingWhileAnotherNodeRefreshes() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        when(remote.get("customerId:7:active"))
+                .thenReturn(new SimpleValueWrapper(new CacheEnvelope("current", 100, System.currentTimeMillis())));
+        Cache cache = cacheManager.getCache("feeConfigs");
+
+        assertEquals("current", cache.get("customerId:7:active", () -> {
+            throw new AssertionError("must not load while another node refreshes");
+        }));
+    }
+
+    private double coalesced(String scope) {
+        return meterRegistry.get("fee.cache.loads.coalesced")
+                .tag("cache", "feeConfigs")
+                .tag("scope", scope)
+                .counter()
+                .count();
+    }
+
+    private double gets(String tier, String result) {
+        return meterRegistry.get("fee.cache.gets")
+                .tag("cache", "feeConfigs")
+                .tag("tier", tier)
+                .tag("result", result)
+                .counter()
+                .count();
+    }
+}
@@ -6,6 +6,7 @@ import com.hdbank.customer_fee_service.dto.request.UpdateCustomerRequest;
 import com.hdbank.customer_fee_service.entity.Customer;
 import com.hdbank.customer_fee_service.kafka.FeeChargedConsumer;
 import com.hdbank.customer_fee_service.kafka.FeeChargedDLQConsumer;
+import com.hdbank.customer_fee_service.kafka.FeeChargedEvent;
 import com.hdbank.customer_fee_service.kafka.FeeChargedProducer;
 import com.hdbank.customer_fee_service.kafka.FeeChargedRetryConsumer;
 import com.hdbank.customer_fee_service.repository.CustomerRepository;
@@ -47,7 +48,7 @@ class CustomerControllerIntegrationTest {
     private CustomerRepository customerRepository;
 
     @MockitoBean
-    private KafkaTemplate<String, String> kafkaTemplate;
+    private KafkaTemplate<String, FeeChargedEvent> kafkaTemplate;
 
     @MockitoBean
     private FeeChargedProducer feeChargedProducer;
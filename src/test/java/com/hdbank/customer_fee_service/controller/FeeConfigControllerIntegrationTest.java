@@ -7,6 +7,7 @@ import com.hdbank.customer_fee_service.entity.CustomerFeeConfig;
 import com.hdbank.customer_fee_service.entity.FeeType;
 import com.hdbank.customer_fee_service.kafka.FeeChargedConsumer;
 import com.hdbank.customer_fee_service.kafka.FeeChargedDLQConsumer;
+import com.hdbank.customer_fee_service.kafka.FeeChargedEvent;
 import com.hdbank.customer_fee_service.kafka.FeeChargedProducer;
 import com.hdbank.customer_fee_service.kafka.FeeChargedRetryConsumer;
 import com.hdbank.customer_fee_service.repository.CustomerFeeConfigRepository;
@@ -58,7 +59,7 @@ class FeeConfigControllerIntegrationTest {
     private CustomerFeeConfigRepository feeConfigRepository;
 
     @MockitoBean
-    private KafkaTemplate<String, String> kafkaTemplate;
+    private KafkaTemplate<String, FeeChargedEvent> kafkaTemplate;
 
     @MockitoBean
     private FeeChargedProducer feeChargedProducer;
@@ -0,0 +1,148 @@
+package com.hdbank.customer_fee_service.kafka;
+
+import com.hdbank.customer_fee_service.config.KafkaConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FeeChargedConsumerTest {
+
+    @Mock
+    private KafkaTemplate<String, FeeChargedEvent> kafkaTemplate;
+
+    private FeeChargedConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        FeeChargedRetryRouter retryRouter = new FeeChargedRetryRouter(kafkaTemplate);
+        ReflectionTestUtils.setField(retryRouter, "routeTimeout", Duration.ofSeconds(1));
+        consumer = new FeeChargedConsumer(retryRouter);
+        ReflectionTestUtils.setField(consumer, "dedupMaxSize", 1000L);
+        ReflectionTestUtils.setField(consumer, "dedupTtl", Duration.ofMinutes(1));
+        consumer.initDedup();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchShouldRouteOnlyTheFailingRecordToRetry() {
+        FeeChargedEvent bad = event("evt-2", null);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        consumer.consumeFeeChargedEvents(List.of(
+                record(0, event("evt-1", "1000"), null),
+                record(1, bad, null),
+                record(2, null, null),
+                record(3, event("evt-3", "2000"), null)
+        ));
+
+        ArgumentCaptor<ProducerRecord<String, FeeChargedEvent>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(sent.capture());
+        assertEquals(KafkaConfig.TOPIC_FEE_CHARGED_RETRY_1S, sent.getValue().topic());
+        assertSame(bad, sent.getValue().value());
+        assertEquals("1", header(sent.getValue(), FeeChargedRetryRouter.ATTEMPT_HEADER));
+        assertNotNull(sent.getValue().headers().lastHeader(FeeChargedRetryRouter.ERROR_HEADER));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchShouldSendToDlqWhenAttemptsInHeaderAreUsedUp() {
+        FeeChargedEvent bad = event("evt-1", null);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        consumer.consumeFeeChargedEvents(List.of(record(0, bad, "3")));
+
+        ArgumentCaptor<ProducerRecord<String, FeeChargedEvent>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(sent.capture());
+        assertEquals(KafkaConfig.TOPIC_FEE_CHARGED_DLQ, sent.getValue().topic());
+        assertEquals("4", header(sent.getValue(), FeeChargedRetryRouter.ATTEMPT_HEADER));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void singleRecordFailureShouldBeRoutedWithoutRethrowing() {
+        FeeChargedEvent bad = event("evt-1", null);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        assertDoesNotThrow(() -> consumer.consumeFeeChargedEvent(record(0, bad, null)));
+
+        verify(kafkaTemplate, times(1)).send(any(ProducerRecord.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchShouldFailAtTheRecordWhoseRouteIsNotAcked() {
+        FeeChargedEvent bad = event("evt-2", null);
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        BatchListenerFailedException error = assertThrows(BatchListenerFailedException.class,
+                () -> consumer.consumeFeeChargedEvents(List.of(
+                        record(0, event("evt-1", "1000"), null),
+                        record(1, bad, null),
+                        record(2, event("evt-3", "2000"), null))));
+
+        // Offsets before the unrouted record are committed, the batch resumes from it
+        assertEquals(1, error.getIndex());
+    }
+
+    @Test
+    void batchShouldFailAtAnUndecodableRecordSoItGoesToTheDlq() {
+        ConsumerRecord<String, FeeChargedEvent> undecodable = record(1, null, null);
+        undecodable.headers().add(SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, new byte[]{1});
+
+        BatchListenerFailedException error = assertThrows(BatchListenerFailedException.class,
+                () -> consumer.consumeFeeChargedEvents(List.of(
+                        record(0, event("evt-1", "1000"), null),
+                        undecodable,
+                        record(2, event("evt-3", null), null))));
+
+        // Not retried by the error handler, and the records after it are left for the redelivery
+        assertEquals(1, error.getIndex());
+        assertInstanceOf(DeserializationException.class, error.getCause());
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    private static ConsumerRecord<String, FeeChargedEvent> record(long offset, FeeChargedEvent event, String attempt) {
+        ConsumerRecord<String, FeeChargedEvent> record =
+                new ConsumerRecord<>(KafkaConfig.TOPIC_FEE_CHARGED, 0, offset, "42", event);
+        if (attempt != null) {
+            record.headers().add(FeeChargedRetryRouter.ATTEMPT_HEADER, attempt.getBytes(StandardCharsets.UTF_8));
+        }
+        return record;
+    }
+
+    private static String header(ProducerRecord<?, ?> record, String name) {
+        return new String(record.headers().lastHeader(name).value(), StandardCharsets.UTF_8);
+    }
+
+    private static FeeChargedEvent event(String eventId, String amount) {
+        return FeeChargedEvent.builder()
+                .eventId(eventId)
+                .customerId(42L)
+                .chargedAmount(amount != null ? new BigDecimal(amount) : null)
+                .currency("VND")
+                .billingMonth("2026-10")
+                .build();
+    }
+}
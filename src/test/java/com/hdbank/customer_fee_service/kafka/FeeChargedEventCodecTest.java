@@ -0,0 +1,73 @@
+package com.hdbank.customer_fee_service.kafka;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeeChargedEventCodecTest {
+
+    @Test
+    void shouldRoundTripBinaryEvent() throws Exception {
+        FeeChargedEvent event = event("3f1c2a4e-8b7d-4c5e-9f60-1a2b3c4d5e6f", "2026-10-01T02:00:00.123456Z");
+
+        byte[] encoded = FeeChargedEventCodec.encode(event);
+
+        assertEquals(FeeChargedEventCodec.VERSION_1, encoded[0]);
+        assertEquals(event, FeeChargedEventCodec.decode(encoded));
+        assertTrue(encoded.length < new ObjectMapper().writeValueAsBytes(event).length / 3);
+    }
+
+    @Test
+    void shouldKeepNonCanonicalIdAndTimeAsText() {
+        FeeChargedEvent event = event("EVT-42", "2026-10-01T09:00:00+07:00");
+
+        assertEquals(event, FeeChargedEventCodec.decode(FeeChargedEventCodec.encode(event)));
+    }
+
+    @Test
+    void shouldRoundTripNullFieldsAndBigAmount() {
+        FeeChargedEvent event = FeeChargedEvent.builder()
+                .eventId("3f1c2a4e-8b7d-4c5e-9f60-1a2b3c4d5e6f")
+                .chargedAmount(new BigDecimal("123456789012345678901234567890.50"))
+                .eventType(null)
+                .build();
+
+        assertEquals(event, FeeChargedEventCodec.decode(FeeChargedEventCodec.encode(event)));
+    }
+
+    @Test
+    void shouldDecodeJsonMessages() throws Exception {
+        FeeChargedEvent event = event("3f1c2a4e-8b7d-4c5e-9f60-1a2b3c4d5e6f", "2026-10-01T02:00:00Z");
+        byte[] json = new ObjectMapper().writeValueAsBytes(event);
+
+        assertEquals(event, FeeChargedEventCodec.decode(json));
+    }
+
+    @Test
+    void shouldRejectUnknownVersionAndTruncatedMessages() {
+        byte[] encoded = FeeChargedEventCodec.encode(event("3f1c2a4e-8b7d-4c5e-9f60-1a2b3c4d5e6f", "2026-10-01T02:00:00Z"));
+
+        assertThrows(SerializationException.class, () -> FeeChargedEventCodec.decode(new byte[]{99, 0}));
+        assertThrows(SerializationException.class,
+                () -> FeeChargedEventCodec.decode(Arrays.copyOf(encoded, encoded.length / 2)));
+        assertNull(FeeChargedEventCodec.decode(new byte[0]));
+    }
+
+    private static FeeChargedEvent event(String eventId, String eventTime) {
+        return FeeChargedEvent.builder()
+                .eventId(eventId)
+                .eventTime(eventTime)
+                .jobId(1001L)
+                .customerId(42L)
+                .feeConfigId(7L)
+                .chargedAmount(new BigDecimal("50000.00"))
+                .currency("VND")
+                .billingMonth("2026-10")
+                .build();
+    }
+}
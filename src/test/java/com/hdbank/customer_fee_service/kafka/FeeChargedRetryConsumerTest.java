@@ -0,0 +1,105 @@
+package com.hdbank.customer_fee_service.kafka;
+
+import com.hdbank.customer_fee_service.config.KafkaConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FeeChargedRetryConsumerTest {
+
+    @Mock
+    private KafkaTemplate<String, FeeChargedEvent> kafkaTemplate;
+
+    @Mock
+    private Acknowledgment ack;
+
+    private FeeChargedRetryConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        FeeChargedRetryRouter retryRouter = new FeeChargedRetryRouter(kafkaTemplate);
+        ReflectionTestUtils.setField(retryRouter, "routeTimeout", Duration.ofSeconds(1));
+        consumer = new FeeChargedRetryConsumer(retryRouter);
+    }
+
+    @Test
+    void shouldPauseUntilRecordIsDue() {
+        ConsumerRecord<String, FeeChargedEvent> record =
+                record(KafkaConfig.TOPIC_FEE_CHARGED_RETRY_60S, System.currentTimeMillis(), event(null), "3");
+
+        consumer.consumeRetryEvent(FeeChargedRetryTier.RETRY_60S, record, ack);
+
+        ArgumentCaptor<Duration> sleep = ArgumentCaptor.forClass(Duration.class);
+        verify(ack).nack(sleep.capture());
+        assertTrue(sleep.getValue().toMillis() > 50_000);
+        verify(ack, never()).acknowledge();
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldRouteDueFailureToNextTier() {
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+        ConsumerRecord<String, FeeChargedEvent> record =
+                record(KafkaConfig.TOPIC_FEE_CHARGED_RETRY_1S, System.currentTimeMillis() - 5_000, event(null), "1");
+
+        consumer.consumeRetryEvent(FeeChargedRetryTier.RETRY_1S, record, ack);
+
+        ArgumentCaptor<ProducerRecord<String, FeeChargedEvent>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(sent.capture());
+        assertEquals(KafkaConfig.TOPIC_FEE_CHARGED_RETRY_10S, sent.getValue().topic());
+        assertEquals("2", new String(sent.getValue().headers()
+                .lastHeader(FeeChargedRetryRouter.ATTEMPT_HEADER).value(), StandardCharsets.UTF_8));
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    void shouldAcknowledgeDueRecordProcessedSuccessfully() {
+        ConsumerRecord<String, FeeChargedEvent> record =
+                record(KafkaConfig.TOPIC_FEE_CHARGED_RETRY_10S, System.currentTimeMillis() - 20_000, event("1000"), "2");
+
+        consumer.consumeRetryEvent(FeeChargedRetryTier.RETRY_10S, record, ack);
+
+        verify(ack).acknowledge();
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    private static ConsumerRecord<String, FeeChargedEvent> record(
+            String topic, long timestamp, FeeChargedEvent event, String attempt) {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(FeeChargedRetryRouter.ATTEMPT_HEADER, attempt.getBytes(StandardCharsets.UTF_8));
+        return new ConsumerRecord<>(topic, 0, 0L, timestamp, TimestampType.CREATE_TIME, -1, -1,
+                event.getEventId(), event, headers, Optional.empty());
+    }
+
+    private static FeeChargedEvent event(String amount) {
+        return FeeChargedEvent.builder()
+                .eventId("evt-1")
+                .customerId(42L)
+                .chargedAmount(amount != null ? new BigDecimal(amount) : null)
+                .currency("VND")
+                .billingMonth("2026-10")
+                .build();
+    }
+}
@@ -4,6 +4,7 @@ import com.hdbank.customer_fee_service.dto.response.FeeChargeResult;
 import com.hdbank.customer_fee_service.entity.Customer;
 import com.hdbank.customer_fee_service.entity.CustomerFeeConfig;
 import com.hdbank.customer_fee_service.entity.CustomerFeeJob;
+import com.hdbank.customer_fee_service.entity.FeeChargedOutbox;
 import com.hdbank.customer_fee_service.entity.FeeJobStatus;
 import com.hdbank.customer_fee_service.entity.FeeType;
 import com.hdbank.customer_fee_service.exception.BusinessException;
@@ -12,24 +13,39 @@ import com.hdbank.customer_fee_service.repository.CustomerFeeConfigRepository;
 import com.hdbank.customer_fee_service.repository.CustomerFeeJobRepository;
 import com.hdbank.customer_fee_service.repository.CustomerRepository;
 import com.hdbank.customer_fee_service.repository.FeeChargedAttemptRepository;
+import com.hdbank.customer_fee_service.repository.FeeChargedOutboxRepository;
 import com.hdbank.customer_fee_service.repository.FeeTypeRepository;
 import com.hdbank.customer_fee_service.service.strategy.FeeCalculationContext;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -50,9 +66,21 @@ class FeeChargeServiceTest {
     @Mock
     private FeeChargedAttemptRepository feeChargedAttemptRepository;
 
+    @Mock
+    private FeeChargedOutboxRepository feeChargedOutboxRepository;
+
     @Mock
     private FeeCalculationContext feeCalculationContext;
 
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private FeeChargeService feeChargeService;
 
@@ -120,7 +148,7 @@ class FeeChargeServiceTest {
         when(feeConfigRepository.findActiveConfigByCustomerIdAndDate(anyLong(), any(LocalDate.class)))
                 .thenReturn(Optional.of(mockConfig));
         when(feeTypeRepository.findById(1L)).thenReturn(Optional.of(mockFeeType));
-        when(feeCalculationContext.calculateFee(any(), any(), any()))
+        when(feeCalculationContext.calculateFee(any(), any(CustomerFeeConfig.class)))
                 .thenReturn(new BigDecimal("50000"));
         when(feeJobRepository.save(any())).thenReturn(mockJob);
 
@@ -129,5 +157,63 @@ class FeeChargeServiceTest {
         assertEquals("SUCCESS", result.getStatus());
         assertEquals(100L, result.getCustomerId());
         assertEquals(new BigDecimal("50000"), result.getChargedAmount());
+        // FeeChargedEvent is written to the outbox in the charge transaction
+        verify(feeChargedOutboxRepository).save(any(FeeChargedOutbox.class));
+    }
+
+    @Test
+    void outboxWriteFailureShouldFailTheChargeInsteadOfRecordingFailedAttempt() {
+        when(feeJobRepository.findById(1L)).thenReturn(Optional.of(mockJob));
+        when(customerRepository.findById(100L)).thenReturn(Optional.of(mockCustomer));
+        when(feeConfigRepository.findActiveConfigByCustomerIdAndDate(anyLong(), any(LocalDate.class)))
+                .thenReturn(Optional.of(mockConfig));
+        when(feeTypeRepository.findById(1L)).thenReturn(Optional.of(mockFeeType));
+        when(feeCalculationContext.calculateFee(any(), any(CustomerFeeConfig.class)))
+                .thenReturn(new BigDecimal("50000"));
+        when(feeJobRepository.save(any())).thenReturn(mockJob);
+        when(feeChargedOutboxRepository.save(any(FeeChargedOutbox.class)))
+                .thenThrow(new DataIntegrityViolationException("outbox write failed"));
+
+        // Propagates so the transaction rolls back, only the SUCCESS attempt was written
+        assertThrows(DataIntegrityViolationException.class, () -> feeChargeService.chargeFee(1L));
+        verify(feeChargedAttemptRepository, times(1)).save(any());
+    }
+
+    @Test
+    void shouldChargeBatchAndOnlyFailJobWithoutConfig() {
+        mockJob.setStatus(FeeJobStatus.IN_PROGRESS);
+        CustomerFeeJob jobWithoutConfig = CustomerFeeJob.builder()
+                .id(2L)
+                .customerId(200L)
+                .billingMonth("2025-01")
+                .status(FeeJobStatus.IN_PROGRESS)
+                .build();
+
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(feeJobRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(mockJob, jobWithoutConfig));
+        when(customerRepository.findAllById(any())).thenReturn(List.of(mockCustomer));
+        when(feeConfigRepository.findActiveConfigsByCustomerIdsAndDate(any(), any(LocalDate.class)))
+                .thenReturn(List.of(mockConfig));
+        when(feeTypeRepository.findAllById(any())).thenReturn(List.of(mockFeeType));
+        when(feeCalculationContext.calculateFee(any(), any(CustomerFeeConfig.class)))
+                .thenReturn(new BigDecimal("50000"));
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any()))
+                .thenReturn(new int[][]{{1, 1}});
+
+        List<FeeChargeResult> results = feeChargeService.chargeFees(List.of(1L, 2L));
+
+        assertEquals(2, results.size());
+        assertEquals("SUCCESS", results.get(0).getStatus());
+        assertEquals(new BigDecimal("50000"), results.get(0).getChargedAmount());
+        assertEquals("FAILED", results.get(1).getStatus());
+        assertTrue(results.get(1).getErrorMessage().contains("No active fee config"));
+        // One batch for attempts, one for job updates, one for the outbox row of the successful job
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), anyCollection(), anyInt(), any());
+        // Per-job latency by calculation type, the job without config never resolved a type
+        assertEquals(1, meterRegistry.get("fee.charge.duration")
+                .tags("calculationType", mockFeeType.getCalculationType(), "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("fee.charge.duration")
+                .tags("calculationType", "UNKNOWN", "outcome", "failed").timer().count());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,132 @@
+package com.hdbank.customer_fee_service.service;
+
+import com.hdbank.customer_fee_service.dto.request.FeeChargedDlqReplayRequest;
+import com.hdbank.customer_fee_service.dto.response.FeeChargedDlqReplayResponse;
+import com.hdbank.customer_fee_service.entity.FeeChargedDlq;
+import com.hdbank.customer_fee_service.exception.ValidationException;
+import com.hdbank.customer_fee_service.kafka.FeeChargedProducer;
+import com.hdbank.customer_fee_service.repository.FeeChargedDlqRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FeeChargedDlqServiceTest {
+
+    @Mock
+    private FeeChargedDlqRepository dlqRepository;
+
+    @Mock
+    private FeeChargedProducer kafkaProducer;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ThreadPoolTaskExecutor feeDlqReplayExecutor;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private FeeChargedDlqService dlqService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(dlqService, "defaultRatePerSecond", 1000);
+        ReflectionTestUtils.setField(dlqService, "chunkSize", 2);
+        ReflectionTestUtils.setField(dlqService, "sendTimeout", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(dlqService, "historyRetention", Duration.ofDays(1));
+        dlqService.registerMetrics();
+    }
+
+    @Test
+    void replayByIdsShouldPublishInChunksAndReportProgress() {
+        // Run the replay on the calling thread
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(feeDlqReplayExecutor).execute(any(Runnable.class));
+        when(dlqRepository.findByIdInOrderById(List.of(1L, 2L))).thenReturn(List.of(dlq(1L, "evt-1"), dlq(2L, "evt-2")));
+        when(dlqRepository.findByIdInOrderById(List.of(3L))).thenReturn(List.of(dlq(3L, "evt-3")));
+        when(kafkaProducer.publishBatch(anyList(), any(Duration.class)))
+                .thenReturn(Set.of("evt-1", "evt-2"))
+                .thenReturn(Set.of());
+
+        FeeChargedDlqReplayRequest request = new FeeChargedDlqReplayRequest();
+        request.setIds(List.of(1L, 2L, 3L));
+        FeeChargedDlqReplayResponse queued = dlqService.startReplay(request);
+
+        FeeChargedDlqReplayResponse replay = dlqService.getReplay(queued.getReplayId());
+        assertEquals("COMPLETED", replay.getStatus());
+        assertEquals(3L, replay.getTotal());
+        assertEquals(2L, replay.getPublished());
+        assertEquals(1L, replay.getFailed());
+        verify(dlqRepository).markReplayed(eq(List.of(1L, 2L)), any());
+        assertEquals(2.0, meterRegistry.get("fee.dlq.replayed").tag("result", "published").counter().count());
+    }
+
+    @Test
+    void replayShouldSkipRowsWithoutEventId() {
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(feeDlqReplayExecutor).execute(any(Runnable.class));
+        when(dlqRepository.findByIdInOrderById(List.of(1L, 2L))).thenReturn(List.of(dlq(1L, "evt-1"), dlq(2L, null)));
+        when(kafkaProducer.publishBatch(anyList(), any(Duration.class))).thenReturn(Set.of("evt-1"));
+
+        FeeChargedDlqReplayRequest request = new FeeChargedDlqReplayRequest();
+        request.setIds(List.of(1L, 2L));
+        FeeChargedDlqReplayResponse replay = dlqService.getReplay(dlqService.startReplay(request).getReplayId());
+
+        assertEquals(1L, replay.getPublished());
+        assertEquals(1L, replay.getFailed());
+        verify(kafkaProducer).publishBatch(
+                argThat(events -> events.size() == 1 && "evt-1".equals(events.get(0).getEventId())),
+                any(Duration.class));
+        verify(dlqRepository).markReplayed(eq(List.of(1L)), any());
+    }
+
+    @Test
+    void replayWithoutSelectionShouldBeRejected() {
+        assertThrows(ValidationException.class, () -> dlqService.startReplay(new FeeChargedDlqReplayRequest()));
+
+        verifyNoInteractions(feeDlqReplayExecutor, kafkaProducer);
+    }
+
+    private static FeeChargedDlq dlq(Long id, String eventId) {
+        return FeeChargedDlq.builder()
+                .id(id)
+                .eventId(eventId)
+                .customerId(42L)
+                .chargedAmount(new BigDecimal("50000.00"))
+                .currency("VND")
+                .billingMonth("2026-10")
+                .build();
+    }
+}
@@ -0,0 +1,194 @@
+package com.hdbank.customer_fee_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hdbank.customer_fee_service.cache.FeeConfigCacheInvalidator;
+import com.hdbank.customer_fee_service.dto.response.FeeConfigImportResult;
+import com.hdbank.customer_fee_service.entity.Customer;
+import com.hdbank.customer_fee_service.entity.CustomerFeeConfig;
+import com.hdbank.customer_fee_service.entity.FeeType;
+import com.hdbank.customer_fee_service.repository.CustomerFeeConfigRepository;
+import com.hdbank.customer_fee_service.repository.CustomerRepository;
+import com.hdbank.customer_fee_service.repository.FeeTypeRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FeeConfigImportServiceTest {
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private FeeTypeRepository feeTypeRepository;
+
+    @Mock
+    private CustomerFeeConfigRepository customerFeeConfigRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private FeeConfigCacheInvalidator feeConfigCacheInvalidator;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private FeeConfigImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = new FeeConfigImportService(customerRepository, feeTypeRepository, customerFeeConfigRepository,
+                jdbcTemplate, transactionTemplate, Validation.buildDefaultValidatorFactory().getValidator(),
+                objectMapper, feeConfigCacheInvalidator, meterRegistry);
+        ReflectionTestUtils.setField(importService, "chunkSize", 10);
+        ReflectionTestUtils.setField(importService, "clearCacheThreshold", 100);
+        importService.registerMetrics();
+
+        when(transactionTemplate.execute(any()))
+                .thenAnswer(inv -> inv.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(customerRepository.findAllById(Set.of(1L))).thenReturn(List.of(
+                Customer.builder().id(1L).status("ACTIVE").build()));
+        when(feeTypeRepository.findAllById(Set.of(1L))).thenReturn(List.of(
+                FeeType.builder().id(1L).code("FIXED_MONTHLY").isActive(true).build()));
+        // Customer 1 already has a config for 2025
+        when(customerFeeConfigRepository.findByCustomerIdInAndDeletedAtIsNull(Set.of(1L))).thenReturn(List.of(
+                CustomerFeeConfig.builder()
+                        .id(5L)
+                        .customerId(1L)
+                        .effectiveFrom(LocalDate.parse("2025-01-01"))
+                        .effectiveTo(LocalDate.parse("2025-12-31"))
+                        .build()));
+    }
+
+    @Test
+    void shouldInsertValidRowsAndRejectTheRestPerLine() throws IOException {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(3))).thenReturn(List.of(1001L, 1002L, 1003L));
+        String input = String.join("\n",
+                row(1L, "VND", "2026-01-01", "2026-06-30"),
+                row(1L, "VND", "2025-06-01", null),                // overlaps the existing config
+                row(1L, "vnd", "2027-01-01", null),                // invalid currency
+                "{\"customer_id\": ",                             // malformed
+                "",
+                row(1L, "VND", "2026-03-01", "2026-04-30"));      // overlaps line 1
+
+        List<FeeConfigImportResult> results = runImport(input, FeeConfigImportService.Format.NDJSON);
+
+        assertEquals(6, results.size());
+        assertResult(results.get(0), "CREATED", 1L);
+        assertEquals(1001L, results.get(0).getConfigId());
+        assertResult(results.get(1), "REJECTED", 2L);
+        assertTrue(results.get(1).getError().contains("id: 5"));
+        assertResult(results.get(2), "REJECTED", 3L);
+        assertEquals("Currency must be a 3-letter code", results.get(2).getError());
+        assertResult(results.get(3), "REJECTED", 4L);
+        assertTrue(results.get(3).getError().startsWith("Malformed JSON"));
+        assertResult(results.get(4), "REJECTED", 6L);
+        assertTrue(results.get(4).getError().contains("id: 1001"));
+
+        FeeConfigImportResult summary = results.get(5);
+        assertEquals("SUMMARY", summary.getStatus());
+        assertEquals(5L, summary.getTotal());
+        assertEquals(1L, summary.getCreated());
+        assertEquals(4L, summary.getRejected());
+
+        // One batch with the single accepted row, one eviction at the end
+        verify(jdbcTemplate).batchUpdate(anyString(), anyCollection(), eq(1), any());
+        verify(feeConfigCacheInvalidator).evictCustomers(Set.of(1L));
+        assertEquals(4.0, meterRegistry.get("fee.config.import.rows").tag("result", "rejected").counter().count());
+    }
+
+    @Test
+    void shouldReadCsvWithQuotedCalculationParams() throws IOException {
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(1))).thenReturn(List.of(1001L));
+        String input = String.join("\n",
+                "customer_id,fee_type_id,monthly_fee_amount,currency,effective_from,effective_to,calculation_params",
+                "1,1,50000,VND,2026-01-01,,\"{\"\"rate\"\": 0.01}\"");
+
+        List<FeeConfigImportResult> results = runImport(input, FeeConfigImportService.Format.CSV);
+
+        assertEquals(2, results.size());
+        assertResult(results.get(0), "CREATED", 2L);
+        assertEquals(1L, results.get(1).getCreated());
+        verify(jdbcTemplate).batchUpdate(anyString(), anyCollection(), eq(1), any());
+    }
+
+    @Test
+    void shouldAbortWithGenericErrorAndLineWhenInsertFails() throws IOException {
+        ReflectionTestUtils.setField(importService, "chunkSize", 1);
+        when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(1)))
+                .thenReturn(List.of(1001L))
+                .thenReturn(List.of(1002L));
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), eq(1), any()))
+                .thenReturn(new int[][]{{1}})
+                .thenThrow(new DataIntegrityViolationException(
+                        "PreparedStatementCallback; SQL [INSERT INTO customer_fee_config ...]; check constraint violated"));
+        String input = String.join("\n",
+                row(1L, "VND", "2026-01-01", "2026-06-30"),
+                row(1L, "VND", "2027-01-01", null));
+
+        List<FeeConfigImportResult> results = runImport(input, FeeConfigImportService.Format.NDJSON);
+
+        assertEquals(3, results.size());
+        assertResult(results.get(0), "CREATED", 1L);
+        assertResult(results.get(1), "ABORTED", 2L);
+        assertEquals("Import aborted by an internal error, rows from line 2 on were not processed",
+                results.get(1).getError());
+        assertEquals(1L, results.get(2).getCreated());
+        // The first chunk was committed, so its customer is still evicted
+        verify(feeConfigCacheInvalidator).evictCustomers(Set.of(1L));
+    }
+
+    private List<FeeConfigImportResult> runImport(String input, FeeConfigImportService.Format format) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        importService.importConfigs(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), format, output);
+
+        List<FeeConfigImportResult> results = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            results.add(objectMapper.readValue(line, FeeConfigImportResult.class));
+        }
+        return results;
+    }
+
+    private static void assertResult(FeeConfigImportResult result, String status, Long line) {
+        assertEquals(status, result.getStatus());
+        assertEquals(line, result.getLine());
+    }
+
+    private static String row(Long customerId, String currency, String from, String to) {
+        return String.format("{\"customer_id\": %d, \"fee_type_id\": 1, \"monthly_fee_amount\": 50000, " +
+                        "\"currency\": \"%s\", \"effective_from\": \"%s\", \"effective_to\": %s}",
+                customerId, currency, from, to != null ? "\"" + to + "\"" : "null");
+    }
+}
@@ -0,0 +1,78 @@
+package com.hdbank.customer_fee_service.service;
+
+import com.hdbank.customer_fee_service.entity.CustomerFeeConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FeeConfigIntervalIndexTest {
+
+    // 2024 closed, 2025-01-01 onwards open ended
+    private final List<CustomerFeeConfig> configs = List.of(
+            config(1L, "2024-01-01", "2024-12-31"),
+            config(2L, "2025-01-01", null)
+    );
+
+    @Test
+    void shouldFindTheOverlappingConfig() {
+        FeeConfigIntervalIndex index = FeeConfigIntervalIndex.of(configs, null);
+
+        assertEquals(Optional.of(1L), index.findOverlap(date("2023-06-01"), date("2024-01-01")));
+        assertEquals(Optional.of(1L), index.findOverlap(date("2024-12-31"), date("2024-12-31")));
+        assertEquals(Optional.of(2L), index.findOverlap(date("2030-01-01"), null));
+        assertEquals(Optional.of(2L), index.findOverlap(date("2023-01-01"), null));
+    }
+
+    @Test
+    void shouldAcceptRangesInTheGaps() {
+        FeeConfigIntervalIndex index = FeeConfigIntervalIndex.of(List.of(configs.get(0)), null);
+
+        assertEquals(Optional.empty(), index.findOverlap(date("2023-01-01"), date("2023-12-31")));
+        assertEquals(Optional.empty(), index.findOverlap(date("2025-01-01"), null));
+    }
+
+    @Test
+    void shouldLeaveOutTheConfigBeingUpdated() {
+        FeeConfigIntervalIndex index = FeeConfigIntervalIndex.of(configs, 2L);
+
+        assertEquals(Optional.empty(), index.findOverlap(date("2025-06-01"), null));
+    }
+
+    @Test
+    void addedRangesShouldBeSeenByLaterLookups() {
+        FeeConfigIntervalIndex index = FeeConfigIntervalIndex.of(List.of(), null);
+        index.add(null, date("2026-01-01"), date("2026-06-30"));
+
+        assertTrue(index.findOverlap(date("2026-06-30"), null).isPresent());
+        assertFalse(index.findOverlap(date("2026-07-01"), null).isPresent());
+    }
+
+    @Test
+    void shouldRecognizeExclusionConstraintViolations() {
+        assertTrue(FeeConfigIntervalIndex.isOverlapViolation(new DataIntegrityViolationException("overlap",
+                new SQLException("conflicting key value violates exclusion constraint", "23P01"))));
+        assertFalse(FeeConfigIntervalIndex.isOverlapViolation(new DataIntegrityViolationException("duplicate",
+                new SQLException("duplicate key value violates unique constraint", "23505"))));
+    }
+
+    private static LocalDate date(String value) {
+        return LocalDate.parse(value);
+    }
+
+    private static CustomerFeeConfig config(Long id, String from, String to) {
+        return CustomerFeeConfig.builder()
+                .id(id)
+                .customerId(7L)
+                .effectiveFrom(date(from))
+                .effectiveTo(to != null ? date(to) : null)
+                .build();
+    }
+}
@@ -0,0 +1,94 @@
+package com.hdbank.customer_fee_service.service;
+
+import com.hdbank.customer_fee_service.cache.FeeConfigCacheInvalidator;
+import com.hdbank.customer_fee_service.dto.request.UpdateFeeConfigRequest;
+import com.hdbank.customer_fee_service.entity.CustomerFeeConfig;
+import com.hdbank.customer_fee_service.exception.ValidationException;
+import com.hdbank.customer_fee_service.repository.CustomerFeeConfigRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FeeConfigServiceTest {
+
+    @Mock
+    private CustomerFeeConfigRepository customerFeeConfigRepository;
+
+    @Mock
+    private FeeConfigCacheInvalidator feeConfigCacheInvalidator;
+
+    @InjectMocks
+    private FeeConfigService feeConfigService;
+
+    private CustomerFeeConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = CustomerFeeConfig.builder()
+                .id(2L)
+                .customerId(1L)
+                .effectiveFrom(LocalDate.parse("2026-01-01"))
+                .effectiveTo(LocalDate.parse("2026-06-30"))
+                .build();
+        when(customerFeeConfigRepository.findById(2L)).thenReturn(Optional.of(config));
+    }
+
+    @Test
+    void updateIntoAnOverlapShouldFailValidationBeforeChangingTheEntity() {
+        UpdateFeeConfigRequest request = new UpdateFeeConfigRequest();
+        request.setEffectiveFrom(LocalDate.parse("2025-06-01"));
+        // Config 1 covers 2025; the entity must still hold its old dates when the check runs,
+        // otherwise Hibernate flushes the overlapping UPDATE before this query (exclusion violation, HTTP 500)
+        when(customerFeeConfigRepository.findLatestStartingOnOrBefore(
+                eq(1L), eq(LocalDate.parse("2026-06-30")), eq(2L), any(Limit.class)))
+                .thenAnswer(inv -> {
+                    assertEquals(LocalDate.parse("2026-01-01"), config.getEffectiveFrom());
+                    return List.of(CustomerFeeConfig.builder()
+                            .id(1L)
+                            .customerId(1L)
+                            .effectiveFrom(LocalDate.parse("2025-01-01"))
+                            .effectiveTo(LocalDate.parse("2025-12-31"))
+                            .build());
+                });
+
+        ValidationException error = assertThrows(ValidationException.class,
+                () -> feeConfigService.updateFeeConfig(2L, request));
+
+        assertEquals("Fee config overlaps with existing config (id: 1) for this customer", error.getMessage());
+        assertEquals(LocalDate.parse("2026-01-01"), config.getEffectiveFrom());
+        verify(customerFeeConfigRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void updateShouldCheckAndSaveTheMergedDates() {
+        UpdateFeeConfigRequest request = new UpdateFeeConfigRequest();
+        request.setEffectiveTo(LocalDate.parse("2026-12-31"));
+        when(customerFeeConfigRepository.findLatestStartingOnOrBefore(
+                eq(1L), eq(LocalDate.parse("2026-12-31")), eq(2L), any(Limit.class)))
+                .thenReturn(List.of());
+        when(customerFeeConfigRepository.saveAndFlush(config)).thenReturn(config);
+
+        feeConfigService.updateFeeConfig(2L, request);
+
+        assertEquals(LocalDate.parse("2026-01-01"), config.getEffectiveFrom());
+        assertEquals(LocalDate.parse("2026-12-31"), config.getEffectiveTo());
+        verify(feeConfigCacheInvalidator).evict(1L, 2L);
+    }
+}
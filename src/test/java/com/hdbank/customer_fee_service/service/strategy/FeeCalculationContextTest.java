@@ -0,0 +1,77 @@
+package com.hdbank.customer_fee_service.service.strategy;
+
+import com.hdbank.customer_fee_service.entity.CustomerFeeConfig;
+import com.hdbank.customer_fee_service.exception.BusinessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class FeeCalculationContextTest {
+
+    private PercentageBalanceFeeStrategy percentageStrategy;
+    private FeeCalculationContext context;
+
+    @BeforeEach
+    void setUp() {
+        percentageStrategy = spy(new PercentageBalanceFeeStrategy());
+        context = new FeeCalculationContext(List.of(new FixedMonthlyFeeStrategy(), percentageStrategy), 100);
+    }
+
+    @Test
+    void shouldReuseCompiledPlanForSameConfigVersion() {
+        // Given - 100M * 0.1% = 100k
+        CustomerFeeConfig config = percentageConfig(0L);
+
+        BigDecimal first = context.calculateFee("PERCENTAGE", config);
+        BigDecimal second = context.calculateFee("PERCENTAGE", config);
+
+        assertEquals(new BigDecimal("100000.00"), first);
+        assertEquals(first, second);
+        verify(percentageStrategy, times(1)).compile(any());
+    }
+
+    @Test
+    void shouldRecompilePlanWhenConfigVersionChanges() {
+        CustomerFeeConfig config = percentageConfig(0L);
+        context.calculateFee("PERCENTAGE", config);
+
+        // When - config updated: new params and version bumped
+        config.getCalculationParams().put("percentage", 0.002);
+        config.setVersion(1L);
+        BigDecimal result = context.calculateFee("PERCENTAGE", config);
+
+        assertEquals(new BigDecimal("200000.00"), result);
+        verify(percentageStrategy, times(2)).compile(any());
+    }
+
+    @Test
+    void shouldThrowExceptionWhenCalculationTypeUnknown() {
+        CustomerFeeConfig config = percentageConfig(0L);
+
+        assertThrows(BusinessException.class, () -> context.calculateFee("UNKNOWN", config));
+    }
+
+    private CustomerFeeConfig percentageConfig(Long version) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("balance", 100000000);
+        params.put("percentage", 0.001);
+        return CustomerFeeConfig.builder()
+                .id(1L)
+                .customerId(100L)
+                .feeTypeId(1L)
+                .monthlyFeeAmount(BigDecimal.ZERO)
+                .calculationParams(params)
+                .version(version)
+                .build();
+    }
+}
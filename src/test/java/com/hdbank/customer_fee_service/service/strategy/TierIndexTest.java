@@ -0,0 +1,60 @@
+package com.hdbank.customer_fee_service.service.strategy;
+
+import com.hdbank.customer_fee_service.service.strategy.TieredBalanceFeeStrategy.Tier;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TierIndexTest {
+
+    @Test
+    void shouldFindTierByBinarySearch() {
+        List<Tier> tiers = List.of(
+                tier("0", "50000000", "10000"),
+                tier("50000001", "200000000", "20000"),
+                tier("200000001", null, "50000")
+        );
+
+        TierIndex index = TierIndex.build(tiers, new BigDecimal("1"));
+
+        assertNotNull(index);
+        assertEquals(0, index.find(index.toScaled(new BigDecimal("50000000"))));
+        assertEquals(1, index.find(index.toScaled(new BigDecimal("50000001"))));
+        assertEquals(2, index.find(index.toScaled(new BigDecimal("999999999999"))));
+        assertEquals(-1, index.find(index.toScaled(new BigDecimal("-1"))));
+    }
+
+    @Test
+    void shouldUseCommonScaleOfBoundsAndBalance() {
+        List<Tier> tiers = List.of(tier("0", "10.5", "1"), tier("10.51", null, "2"));
+
+        TierIndex index = TierIndex.build(tiers, new BigDecimal("10.505"));
+
+        assertNotNull(index);
+        assertEquals(10505L, index.toScaled(new BigDecimal("10.505")));
+        assertEquals(-1, index.find(index.toScaled(new BigDecimal("10.505"))));
+    }
+
+    @Test
+    void shouldNotBuildIndexForUnsortedOrOverlappingTiers() {
+        BigDecimal balance = BigDecimal.ONE;
+
+        assertNull(TierIndex.build(List.of(tier("100", "200", "1"), tier("0", "99", "2")), balance));
+        assertNull(TierIndex.build(List.of(tier("0", "100", "1"), tier("100", "200", "2")), balance));
+        assertNull(TierIndex.build(List.of(tier("0", null, "1"), tier("100", "200", "2")), balance));
+    }
+
+    @Test
+    void shouldNotBuildIndexWhenBoundsOverflowLong() {
+        List<Tier> tiers = List.of(tier("0", "99999999999999999999", "1"));
+
+        assertNull(TierIndex.build(tiers, BigDecimal.ONE));
+    }
+
+    private Tier tier(String from, String to, String fee) {
+        return new Tier(new BigDecimal(from), to != null ? new BigDecimal(to) : null, new BigDecimal(fee));
+    }
+}
@@ -72,4 +72,59 @@ class TieredBalanceFeeStrategyTest {
         // When/Then
         assertThrows(ValidationException.class, () -> strategy.validateParams(params));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldFindTierInLargeTierTable() {
+        // Given - 40 tiers of 10M each, tier i costs (i + 1) * 1000
+        List<Map<String, Object>> tiers = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Map<String, Object> tier = new HashMap<>();
+            tier.put("from", i * 10000000L + (i == 0 ? 0 : 1));
+            tier.put("to", i == 39 ? null : (i + 1) * 10000000L);
+            tier.put("fee", (i + 1) * 1000);
+            tiers.add(tier);
+        }
+
+        // Then - boundaries of the tiers match exactly like the linear scan
+        assertEquals(new BigDecimal("1000"), strategy.calculateFee(BigDecimal.ZERO, tieredParams(0, tiers)));
+        assertEquals(new BigDecimal("1000"), strategy.calculateFee(BigDecimal.ZERO, tieredParams(10000000, tiers)));
+        assertEquals(new BigDecimal("2000"), strategy.calculateFee(BigDecimal.ZERO, tieredParams(10000001, tiers)));
+        assertEquals(new BigDecimal("26000"), strategy.calculateFee(BigDecimal.ZERO, tieredParams(255000000, tiers)));
+        assertEquals(new BigDecimal("40000"), strategy.calculateFee(BigDecimal.ZERO, tieredParams(5000000000L, tiers)));
+    }
+
+    @Test
+    void shouldFallbackToMonthlyFeeWhenBalanceFallsInGapOrBelowFirstTier() {
+        // Given - decimal bounds with a gap between 1000.50 and 1000.75
+        List<Map<String, Object>> tiers = List.of(
+                Map.of("from", 100, "to", 1000.50, "fee", 10000),
+                Map.of("from", 1000.75, "to", 5000, "fee", 20000)
+        );
+        BigDecimal defaultFee = new BigDecimal("99999");
+
+        assertEquals(new BigDecimal("10000"), strategy.calculateFee(defaultFee, tieredParams(1000.5, tiers)));
+        assertEquals(defaultFee, strategy.calculateFee(defaultFee, tieredParams(1000.6, tiers)));
+        assertEquals(new BigDecimal("20000"), strategy.calculateFee(defaultFee, tieredParams(1000.75, tiers)));
+        assertEquals(defaultFee, strategy.calculateFee(defaultFee, tieredParams(99, tiers)));
+    }
+
+    @Test
+    void shouldKeepFirstMatchWhenTiersOverlap() {
+        // Given - unsorted and overlapping tiers cannot be indexed, first matching tier in config order wins
+        List<Map<String, Object>> tiers = List.of(
+                Map.of("from", 50000001, "to", 200000000, "fee", 20000),
+                Map.of("from", 0, "to", 100000000, "fee", 10000)
+        );
+
+        BigDecimal result = strategy.calculateFee(BigDecimal.ZERO, tieredParams(80000000, tiers));
+
+        assertEquals(new BigDecimal("20000"), result);
+    }
+
+    private Map<String, Object> tieredParams(Number balance, List<Map<String, Object>> tiers) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("balance", balance);
+        params.put("tiers", tiers);
+        return params;
+    }
+}